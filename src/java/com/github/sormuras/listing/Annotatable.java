@@ -43,6 +43,22 @@ public interface Annotatable extends Listable {
     getAnnotations().addAll(annotations);
   }
 
+  /** Return estimated length of all annotations including their separators. */
+  default int estimateAnnotationsLength() {
+    if (!isAnnotated()) {
+      return 0;
+    }
+    return Listable.estimateLength(getAnnotations(), 1) + 1;
+  }
+
+  /** Return number of lines completed by annotations on separate lines. */
+  default int estimateAnnotationsLines() {
+    if (!isAnnotated() || getAnnotationSeparator() != Listable.NEWLINE) {
+      return 0;
+    }
+    return getAnnotations().size();
+  }
+
   List<Annotation> getAnnotations();
 
   /** Return listable separator depending on the annotation target element type. */
@@ -59,6 +75,11 @@ public interface Annotatable extends Listable {
 
   boolean isAnnotated();
 
+  /** Return {@code true} if this instance is shared and therefore unmodifiable. */
+  default boolean isShared() {
+    return false;
+  }
+
   default void setAnnotations(Annotation... annotations) {
     getAnnotations().clear();
     addAnnotations(annotations);
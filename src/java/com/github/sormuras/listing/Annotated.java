@@ -14,14 +14,48 @@
 
 package com.github.sormuras.listing;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.LongSupplier;
 
-/** Base {@link Annotation}-collecting implementation. */
-public abstract class Annotated implements Annotatable {
+/**
+ * Base {@link Annotation}-collecting implementation.
+ *
+ * <p>Nodes are equal if they are of the same class, hold equal annotations and their own state,
+ * as compared by {@link #equalsState(Annotated)}, is equal. References to enclosing nodes are not
+ * part of the state. The structural hash code and the comparison key are cached until the node or
+ * one of its children changes, as reported to the node's {@link Mutation.Hub hub}.
+ */
+public abstract class Annotated implements Annotatable, Mutation.Source {
+
+  /** Hash code and comparison key derived at one mutation stamp. */
+  private static final class Cache {
+    volatile String comparisonKey;
+    volatile Integer hash;
+    final long stamp;
+
+    Cache(long stamp) {
+      this.stamp = stamp;
+    }
+  }
 
   private List<Annotation> annotations = Collections.emptyList();
+  private transient volatile Cache cache;
+  private final Mutation.Hub hub = new Mutation.Hub();
+  private long mutationStamp = 0;
+  private boolean shared = false;
+
+  /** Return comparison key, recomputed only after this node or a child changed. */
+  @Override
+  public String comparisonKey() {
+    Cache cache = cache();
+    String key = cache.comparisonKey;
+    if (key == null) {
+      key = Annotatable.super.comparisonKey();
+      cache.comparisonKey = key;
+    }
+    return key;
+  }
 
   @Override
   public boolean equals(Object obj) {
@@ -34,20 +68,65 @@ public abstract class Annotated implements Annotatable {
     if (getClass() != obj.getClass()) {
       return false;
     }
-    return hashCode() == obj.hashCode();
+    Annotated other = (Annotated) obj;
+    if (hashCode() != other.hashCode()) {
+      return false;
+    }
+    return annotations.equals(other.annotations) && equalsState(other);
+  }
+
+  /**
+   * Return {@code true} if the own state of this node equals the one of the other node.
+   *
+   * <p>The other node is of the same class. Subclasses holding state override this method and
+   * {@link #hashState()} together.
+   */
+  protected boolean equalsState(Annotated other) {
+    return true;
   }
 
   @Override
   public List<Annotation> getAnnotations() {
+    if (shared) {
+      return guarded(annotations);
+    }
     if (annotations == Collections.EMPTY_LIST) {
-      annotations = new ArrayList<>();
+      annotations = Mutation.trackedList(hub);
     }
     return annotations;
   }
 
+  /** Return the hub notified by changes of this node, its own collections and its children. */
+  @Override
+  public Mutation.Hub getHub() {
+    return hub;
+  }
+
+  /**
+   * Return highest stamp of this node's own properties, its annotations and its child nodes.
+   *
+   * <p>The stamp is computed again only after this node or one of its children changed.
+   */
+  @Override
+  public final long getMutationStamp() {
+    return cache().stamp;
+  }
+
+  /** Return structural hash code, recomputed only after this node or a child changed. */
   @Override
   public int hashCode() {
-    return list().hashCode();
+    Cache cache = cache();
+    Integer hash = cache.hash;
+    if (hash == null) {
+      hash = 31 * (31 * getClass().getName().hashCode() + annotations.hashCode()) + hashState();
+      cache.hash = hash;
+    }
+    return hash;
+  }
+
+  /** Return hash code of the own state of this node, consistent with equalsState. */
+  protected int hashState() {
+    return 0;
   }
 
   @Override
@@ -55,8 +134,84 @@ public abstract class Annotated implements Annotatable {
     return !annotations.isEmpty();
   }
 
+  /** Annotated nodes render at least a keyword or a name, subclasses may refine. */
+  @Override
+  public boolean isEmpty() {
+    return false;
+  }
+
+  @Override
+  public boolean isShared() {
+    return shared;
+  }
+
+  /** Return the list, or an unmodifiable view of it if this node is shared. */
+  protected <E> List<E> guarded(List<E> list) {
+    if (!shared || list == Collections.EMPTY_LIST) {
+      return list;
+    }
+    return Collections.unmodifiableList(list);
+  }
+
+  /** Record a change of one of this node's own properties, throws if this node is shared. */
+  protected void markMutated() {
+    if (shared) {
+      throw new UnsupportedOperationException("shared node is unmodifiable: " + this);
+    }
+    mutationStamp = hub.changed();
+  }
+
+  /**
+   * Mark this node, its annotations and all its child nodes as shared, any later attempt to modify
+   * one of them throws.
+   *
+   * <p>Shared nodes are flyweights or snapshots referenced by many models at once. Subclasses
+   * holding child nodes override this method to share them, too, before calling this one.
+   */
+  public void share() {
+    annotations.forEach(Annotation::share);
+    // validate the cache once, it can't become stale from now on
+    refresh(cache);
+    shared = true;
+    hub.freeze();
+  }
+
+  /**
+   * Return highest stamp of the child nodes of this node, not including its annotations.
+   *
+   * <p>Subclasses holding child nodes override this method.
+   */
+  protected long stampState() {
+    return 0;
+  }
+
   @Override
   public String toString() {
     return getClass().getSimpleName() + "{@ " + (isAnnotated() ? getAnnotations().size() : 0) + "}";
   }
+
+  /**
+   * Return cache of this node, replaced if this node or one of its children changed.
+   *
+   * <p>The cache of a shared node was validated by {@link #share()} and is returned as is.
+   */
+  private Cache cache() {
+    Cache cache = this.cache;
+    if (cache != null && (shared || hub.isValid() && cache.stamp == hub.getStamp())) {
+      return cache;
+    }
+    return refresh(cache);
+  }
+
+  /** Return the given cache if its stamp is unchanged, or replace it. */
+  private Cache refresh(Cache cache) {
+    LongSupplier supplier =
+        () -> Math.max(Math.max(mutationStamp, Mutation.stamp(annotations)), stampState());
+    long stamp = Mutation.stamp(hub, supplier);
+    if (cache == null || cache.stamp != stamp) {
+      cache = new Cache(stamp);
+      this.cache = cache;
+    }
+    return cache;
+  }
 }
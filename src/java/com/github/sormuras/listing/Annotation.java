@@ -28,8 +28,6 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.Spliterator;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -37,7 +35,68 @@ import java.util.stream.Collectors;
  *
  * @see https://docs.oracle.com/javase/specs/jls/se8/html/jls-9.html#jls-9.7
  */
-public class Annotation implements Listable {
+public class Annotation implements Mutation.Source {
+
+  /** Constant value literal, equal to other literals of an equal value. */
+  private static final class Value implements Listable {
+
+    private final Object object;
+
+    Value(Object object) {
+      this.object = object;
+    }
+
+    @Override
+    public Listing apply(Listing listing) {
+      if (object instanceof Class) {
+        return listing.add(Name.of((Class<?>) object)).add(".class");
+      }
+      if (object instanceof Enum) {
+        return listing.add(Name.of((Enum<?>) object));
+      }
+      if (object instanceof String) {
+        return listing.add(escape((String) object));
+      }
+      if (object instanceof Float) {
+        return listing.fmt(Locale.US, "%fF", object);
+      }
+      if (object instanceof Long) {
+        return listing.fmt(Locale.US, "%dL", object);
+      }
+      if (object instanceof Character) {
+        return listing.add("'").add(escape((char) object)).add("'");
+      }
+      if (object instanceof Listable) {
+        return listing.add((Listable) object);
+      }
+      return listing.add(Objects.toString(object));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Value && Objects.equals(object, ((Value) other).object);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(object);
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return object instanceof Listable && ((Listable) object).isEmpty();
+    }
+
+    /** Return {@code true} if any change of the value is reflected by its mutation stamp. */
+    boolean isTracked() {
+      return !(object instanceof Listable) || Annotation.isTracked((Listable) object);
+    }
+
+    @Override
+    public String toString() {
+      return "Value{" + object + "}";
+    }
+  }
 
   public static Annotation of(java.lang.annotation.Annotation annotation) {
     return of(annotation, false);
@@ -85,34 +144,33 @@ public class Annotation implements Listable {
     return new Annotation(Name.of(type), values);
   }
 
-  /** Converts an object to a listable representation usable as an annotation value literal. */
+  /**
+   * Converts an object to a listable representation usable as an annotation value literal.
+   *
+   * <p>The returned literals are equal if the objects are equal.
+   */
   public static Listable value(Object object) {
-    if (object instanceof Class) {
-      return listing -> listing.add(Name.of((Class<?>) object)).add(".class");
-    }
-    if (object instanceof Enum) {
-      return listing -> listing.add(Name.of((Enum<?>) object));
-    }
-    if (object instanceof String) {
-      return listing -> listing.add(escape((String) object));
-    }
-    if (object instanceof Float) {
-      return listing -> listing.fmt(Locale.US, "%fF", object);
-    }
-    if (object instanceof Long) {
-      return listing -> listing.fmt(Locale.US, "%dL", object);
-    }
-    if (object instanceof Character) {
-      return listing -> listing.add("'").add(escape((char) object)).add("'");
+    return new Value(object);
+  }
+
+  /** Return {@code true} if the value is a constant or a node tracking all its changes. */
+  private static boolean isTracked(Listable value) {
+    if (value instanceof Annotation) {
+      return ((Annotation) value).isTracked();
     }
-    if (object instanceof Listable) {
-      return listing -> listing.add((Listable) object);
+    if (value instanceof Value) {
+      return ((Value) value).isTracked();
     }
-    return listing -> listing.add(Objects.toString(object));
+    return value instanceof Stamped;
   }
 
+  private transient String comparisonKey;
+  private transient long comparisonStamp = -1;
+  private final Mutation.Hub hub = new Mutation.Hub();
   private Map<String, List<Listable>> members = Collections.emptyMap();
   private final Name name;
+  private final RenderCache renderCache = new RenderCache();
+  private Map<String, List<Listable>> sharedMembers = null;
 
   public Annotation(Name name, Object... values) {
     this.name = requireNonNull(name, "name");
@@ -125,7 +183,7 @@ public class Annotation implements Listable {
     requireNonNull(listable, "listable");
     List<Listable> values = getMembers().get(name);
     if (values == null) {
-      values = new ArrayList<>();
+      values = Mutation.trackedList(hub);
       getMembers().put(name, values);
     }
     values.add(listable);
@@ -140,47 +198,161 @@ public class Annotation implements Listable {
     addObject("value", object);
   }
 
+  /** Render cached text only if every member value is a constant or a tracked node. */
   @Override
   public Listing apply(Listing listing) {
-    // always emit "@" and the typename
-    listing.add('@').add(getTypeName());
-    Map<String, List<Listable>> members = this.members;
-    // trivial case: marker annotation w/o members
+    if (listing.isRenderCacheEnabled() && isTracked()) {
+      return renderCache.apply(listing, getMutationStamp(), this::render);
+    }
+    return render(listing);
+  }
+
+  /**
+   * Return comparison key, recomputed only after a member changed.
+   *
+   * <p>The key of a shared annotation was validated by {@link #share()} and is returned as is.
+   */
+  @Override
+  public String comparisonKey() {
+    String key = comparisonKey;
+    if (key != null && isShared()) {
+      return key;
+    }
+    long stamp = getMutationStamp();
+    if (key == null || comparisonStamp != stamp) {
+      key = Mutation.Source.super.comparisonKey();
+      comparisonKey = key;
+      comparisonStamp = stamp;
+    }
+    return key;
+  }
+
+  /** Return {@code true} if the other annotation has an equal type name and equal members. */
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof Annotation)) {
+      return false;
+    }
+    Annotation that = (Annotation) other;
+    return name.equals(that.name) && members.equals(that.members);
+  }
+
+  @Override
+  public int estimateLength() {
+    int length = 1 + name.estimateLength();
     if (members.isEmpty()) {
-      return listing;
+      return length;
     }
-    // simple case: single element annotation w/ member called "value"
-    if (members.size() == 1 && members.containsKey("value")) {
-      return listing.add('(').add(values(members.get("value"))).add(')');
+    length += 2;
+    for (Entry<String, List<Listable>> entry : members.entrySet()) {
+      length += entry.getKey().length() + 5 + Listable.estimateLength(entry.getValue(), 2);
     }
-    // normal annotation: emit all "key = value" pairs
-    Consumer<Entry<String, List<Listable>>> separate = entry -> listing.add(", ");
-    Consumer<Entry<String, List<Listable>>> print =
-        e -> listing.add(e.getKey()).add(" = ").add(values(e.getValue()));
-    Spliterator<Entry<String, List<Listable>>> entries = members.entrySet().spliterator();
-    listing.add('(');
-    entries.tryAdvance(print);
-    entries.forEachRemaining(separate.andThen(print));
-    listing.add(')');
-    return listing;
+    return length;
   }
 
   public Map<String, List<Listable>> getMembers() {
+    if (sharedMembers != null) {
+      return sharedMembers;
+    }
     if (members == Collections.EMPTY_MAP) {
-      members = new LinkedHashMap<>();
+      members = Mutation.trackedMap(hub);
     }
     return members;
   }
 
+  /** Return the hub notified by changes of the members. */
+  @Override
+  public Mutation.Hub getHub() {
+    return hub;
+  }
+
+  @Override
+  public long getMutationStamp() {
+    return Mutation.stamp(members);
+  }
+
   public Name getTypeName() {
     return name;
   }
 
+  @Override
+  public int hashCode() {
+    return 31 * name.hashCode() + members.hashCode();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return false;
+  }
+
+  /** Return {@code true} if this instance is shared and therefore unmodifiable. */
+  public boolean isShared() {
+    return sharedMembers != null;
+  }
+
+  /** Return {@code true} if every member value is a constant or a node tracking its changes. */
+  boolean isTracked() {
+    for (List<Listable> values : members.values()) {
+      for (Listable value : values) {
+        if (!isTracked(value)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /** Mark this annotation and all nested annotations as shared, any later modification throws. */
+  public void share() {
+    if (sharedMembers != null) {
+      return;
+    }
+    Map<String, List<Listable>> view = new LinkedHashMap<>();
+    for (Entry<String, List<Listable>> entry : members.entrySet()) {
+      for (Listable value : entry.getValue()) {
+        if (value instanceof Annotation) {
+          ((Annotation) value).share();
+        }
+      }
+      view.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+    }
+    // drop a stale key, a key computed from now on can't become stale
+    if (comparisonStamp != getMutationStamp()) {
+      comparisonKey = null;
+    }
+    sharedMembers = Collections.unmodifiableMap(view);
+    hub.freeze();
+  }
+
   @Override
   public String toString() {
     return "Annotation{" + getTypeName() + ", members=" + members + "}";
   }
 
+  private Listing render(Listing listing) {
+    // always emit "@" and the typename
+    listing.add('@').add(getTypeName());
+    Map<String, List<Listable>> members = this.members;
+    // trivial case: marker annotation w/o members
+    if (members.isEmpty()) {
+      return listing;
+    }
+    // simple case: single element annotation w/ member called "value"
+    if (members.size() == 1 && members.containsKey("value")) {
+      return listing.add('(').add(values(members.get("value"))).add(')');
+    }
+    // normal annotation: emit all "key = value" pairs
+    List<Listable> pairs = new ArrayList<>(members.size());
+    for (Entry<String, List<Listable>> entry : members.entrySet()) {
+      Listable values = values(entry.getValue());
+      pairs.add(l -> l.add(entry.getKey()).add(" = ").add(values));
+    }
+    return listing.add('(').add(pairs, ", ").add(')');
+  }
+
   /** Annotation array-aware value(s) appender. */
   private Listable values(List<Listable> values) {
     return (listing) -> {
@@ -19,8 +19,10 @@ import static java.util.Collections.emptyList;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureClassLoader;
 import java.util.HashMap;
@@ -31,6 +33,7 @@ import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
 import javax.tools.FileObject;
 import javax.tools.ForwardingJavaFileManager;
@@ -65,6 +68,49 @@ public interface Compilation {
     }
   }
 
+  class ByteContentFileObject extends SimpleJavaFileObject {
+
+    private final ByteBuffer byteContent;
+    private final long lastModified;
+
+    public ByteContentFileObject(URI uri, ByteBuffer byteContent) {
+      super(uri, JavaFileObject.Kind.SOURCE);
+      this.byteContent = byteContent.asReadOnlyBuffer();
+      this.lastModified = System.currentTimeMillis();
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return StandardCharsets.UTF_8.decode(byteContent.duplicate());
+    }
+
+    @Override
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    @Override
+    public InputStream openInputStream() {
+      ByteBuffer bytes = byteContent.duplicate();
+      return new InputStream() {
+        @Override
+        public int read() {
+          return bytes.hasRemaining() ? bytes.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] array, int offset, int length) {
+          if (!bytes.hasRemaining()) {
+            return -1;
+          }
+          int count = Math.min(length, bytes.remaining());
+          bytes.get(array, offset, count);
+          return count;
+        }
+      };
+    }
+  }
+
   class CharContentFileObject extends SimpleJavaFileObject {
 
     private final String charContent;
@@ -91,6 +137,27 @@ public interface Compilation {
     }
   }
 
+  /**
+   * Compilation failed, holding all diagnostics reported by the compiler.
+   *
+   * @see SourceMap#find(Diagnostic)
+   */
+  class Failure extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<Diagnostic<? extends JavaFileObject>> diagnostics;
+
+    public Failure(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+      super("compilation failed! " + diagnostics);
+      this.diagnostics = diagnostics;
+    }
+
+    public List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
+      return diagnostics;
+    }
+  }
+
   class Manager extends ForwardingJavaFileManager<StandardJavaFileManager> {
 
     private final Map<String, ByteArrayFileObject> map = new HashMap<>();
@@ -171,7 +238,11 @@ public interface Compilation {
     return compile(null, emptyList(), emptyList(), asList(units));
   }
 
-  /** Convenient JavaCompiler facade returning a ClassLoader with all compiled units. */
+  /**
+   * Convenient JavaCompiler facade returning a ClassLoader with all compiled units.
+   *
+   * @throws Failure holding all diagnostics, if the compilation failed
+   */
   static ClassLoader compile(
       ClassLoader parent,
       List<String> options,
@@ -189,7 +260,7 @@ public interface Compilation {
     }
     boolean success = task.call();
     if (!success) {
-      throw new RuntimeException("compilation failed! " + diagnostics.getDiagnostics());
+      throw new Failure(diagnostics.getDiagnostics());
     }
     return manager.getClassLoader(StandardLocation.CLASS_PATH);
   }
@@ -198,6 +269,11 @@ public interface Compilation {
     return source(URI.create(uri), charContent);
   }
 
+  /** Create source file object reading UTF-8 encoded bytes from the given buffer. */
+  static JavaFileObject source(URI uri, ByteBuffer byteContent) {
+    return new ByteContentFileObject(uri, byteContent);
+  }
+
   static JavaFileObject source(URI uri, String charContent) {
     return new CharContentFileObject(uri, charContent);
   }
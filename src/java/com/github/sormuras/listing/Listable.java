@@ -15,6 +15,7 @@
 package com.github.sormuras.listing;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.function.UnaryOperator;
 
 @FunctionalInterface
@@ -27,6 +28,11 @@ public interface Listable extends UnaryOperator<Listing>, Comparable<Listable>,
       return listing;
     }
 
+    @Override
+    public int estimateLength() {
+      return 0;
+    }
+
     @Override
     public boolean isEmpty() {
       return true;
@@ -49,8 +55,37 @@ public interface Listable extends UnaryOperator<Listing>, Comparable<Listable>,
 
   Listable SPACE = listing -> listing.add(' ');
 
+  /** Return estimated length of the listable, zero for {@code null}. */
+  static int estimateLength(Listable listable) {
+    return listable == null ? 0 : listable.estimateLength();
+  }
+
+  /** Return sum of the estimated lengths of all listables and the separators between them. */
+  static int estimateLength(Collection<? extends Listable> listables, int separatorLength) {
+    if (listables.isEmpty()) {
+      return 0;
+    }
+    int length = (listables.size() - 1) * separatorLength;
+    for (Listable listable : listables) {
+      length += listable.estimateLength();
+    }
+    return length;
+  }
+
+  /** Return sum of the estimated line counts of all listables, counting at least one each. */
+  static int estimateLines(Collection<? extends Listable> listables) {
+    int lines = 0;
+    for (Listable listable : listables) {
+      lines += Math.max(1, listable.estimateLines());
+    }
+    return lines;
+  }
+
   @Override
   default int compareTo(Listable other) {
+    if (this == other) {
+      return 0;
+    }
     return comparisonKey().compareTo(other.comparisonKey());
   }
 
@@ -58,6 +93,20 @@ public interface Listable extends UnaryOperator<Listing>, Comparable<Listable>,
     return getClass().getSimpleName().toLowerCase() + "#" + toString().toLowerCase();
   }
 
+  /**
+   * Return a cheap estimation of the number of chars this listable renders, indentation excluded.
+   *
+   * <p>Implementations must not render, the default assumes a short inline fragment.
+   */
+  default int estimateLength() {
+    return 16;
+  }
+
+  /** Return a cheap estimation of the number of lines this listable completes. */
+  default int estimateLines() {
+    return 0;
+  }
+
   default boolean isEmpty() {
     return list().isEmpty();
   }
@@ -66,10 +115,53 @@ public interface Listable extends UnaryOperator<Listing>, Comparable<Listable>,
     return list(UnaryOperator.identity());
   }
 
+  /** Stream this listable line by line to the given target. */
+  default void list(Appendable target) {
+    Listing.Builder builder = listOperator().apply(Listing.builder().setTarget(target));
+    int length = estimateLength();
+    if (target instanceof Utf8Buffer) {
+      ((Utf8Buffer) target).ensureRemaining(length);
+    }
+    Listing listing = builder.build();
+    listing.ensureCapacity(length, estimateLines());
+    listing.add(this).flush();
+  }
+
+  /**
+   * Return the text of this listable, rendered by a pooled listing of the current thread.
+   *
+   * <p>If neither this listable nor the caller customize the builder, the shared default
+   * configuration is used and no builder is created. If the caller sets a target, the text is
+   * streamed to it like {@link #list(Appendable)} does and an empty string is returned.
+   */
   default String list(UnaryOperator<Listing.Builder> customOperator) {
-    Listing.Builder builder = Listing.builder();
-    Listing listing = listOperator().andThen(customOperator).apply(builder).build();
-    return listing.add(this).toString();
+    UnaryOperator<Listing.Builder> identity = UnaryOperator.identity();
+    UnaryOperator<Listing.Builder> operator = listOperator();
+    Listing.Configuration configuration = Listing.Configuration.DEFAULT;
+    SourceMap sourceMap = null;
+    if (operator != identity || customOperator != identity) {
+      Listing.Builder builder = Listing.builder();
+      if (operator != identity) {
+        builder = operator.apply(builder);
+      }
+      builder = customOperator.apply(builder);
+      if (builder.target != null) {
+        Listing listing = builder.build();
+        listing.ensureCapacity(estimateLength(), estimateLines());
+        listing.add(this).flush();
+        return "";
+      }
+      configuration = builder.configuration();
+      sourceMap = builder.sourceMap;
+    }
+    Listing listing = Listing.acquire(configuration);
+    listing.setSourceMap(sourceMap);
+    listing.ensureCapacity(estimateLength(), estimateLines());
+    try {
+      return listing.add(this).toString();
+    } finally {
+      listing.release();
+    }
   }
 
   default UnaryOperator<Listing.Builder> listOperator() {
@@ -14,17 +14,26 @@
 
 package com.github.sormuras.listing;
 
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
-import java.util.Scanner;
 import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Predicate;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.IntStream;
 
 public class Listing {
 
@@ -36,12 +45,22 @@ public class Listing {
     public Predicate<Name> imported = Builder::not;
     public String indentationString = "  ";
     public String lineSeparator = "\n";
+    public int maxColumn = 0;
     public boolean omitJavaLangPackage = false;
+    public boolean renderCacheEnabled = false;
+    public ForkJoinPool renderPool = null;
+    public SourceMap sourceMap = null;
+    public Appendable target = null;
 
     public Listing build() {
       return new Listing(this);
     }
 
+    /** Return immutable snapshot of this builder's settings, ignoring the target. */
+    public Configuration configuration() {
+      return new Configuration(this);
+    }
+
     public Builder setImported(Predicate<Name> imported) {
       this.imported = imported;
       return this;
@@ -57,37 +76,200 @@ public class Listing {
       return this;
     }
 
+    /**
+     * Wrap lists separated by a text ending with a space when a line exceeds the given column.
+     *
+     * <p>Zero, the default, disables wrapping. Use 100 for output close to the Google Java Style.
+     *
+     * @see Listing#add(List, CharSequence)
+     */
+    public Builder setMaxColumn(int maxColumn) {
+      if (maxColumn < 0) {
+        throw new IllegalArgumentException("maxColumn must not be negative: " + maxColumn);
+      }
+      this.maxColumn = maxColumn;
+      return this;
+    }
+
     public Builder setOmitJavaLangPackage(boolean omitJavaLangPackage) {
       this.omitJavaLangPackage = omitJavaLangPackage;
       return this;
     }
+
+    /**
+     * Reuse text rendered by inline nodes, like names and types, as long as the model is unchanged.
+     *
+     * @see RenderCache
+     */
+    public Builder setRenderCacheEnabled(boolean renderCacheEnabled) {
+      this.renderCacheEnabled = renderCacheEnabled;
+      return this;
+    }
+
+    /**
+     * Render independent declarations in parallel on the given pool, {@code null} disables it.
+     *
+     * @see Listing#addParallel(List, Listable)
+     */
+    public Builder setRenderPool(ForkJoinPool renderPool) {
+      this.renderPool = renderPool;
+      return this;
+    }
+
+    /**
+     * Record the line ranges rendered by each model node into the given source map.
+     *
+     * <p>Recording renders sequentially, a configured render pool is ignored.
+     */
+    public Builder setSourceMap(SourceMap sourceMap) {
+      this.sourceMap = sourceMap;
+      return this;
+    }
+
+    /**
+     * Stream finished lines to the given target instead of collecting them all in memory.
+     *
+     * <p>Finished lines are written in chunks of a few kilobytes and a small tail window of lines
+     * is always held back to support {@link Listing#trim()}. Call {@link Listing#flush()} when done
+     * to write the remaining text to the target.
+     */
+    public Builder setTarget(Appendable target) {
+      this.target = target;
+      return this;
+    }
+
+    /** Stream finished lines, encoded as UTF-8, to the given channel. */
+    public Builder setTarget(WritableByteChannel channel) {
+      return setTarget(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+    }
+  }
+
+  /**
+   * Immutable listing settings, shareable between threads and reusable {@link Listing} instances.
+   */
+  public static final class Configuration {
+
+    /** Default settings as provided by a new {@link Builder}. */
+    public static final Configuration DEFAULT = builder().configuration();
+
+    private final Predicate<Name> imported;
+    private final String indentationString;
+    private final String lineSeparator;
+    private final int maxColumn;
+    private final boolean omitJavaLangPackage;
+    private final boolean renderCacheEnabled;
+    private final ForkJoinPool renderPool;
+
+    private Configuration(Builder builder) {
+      this.imported = builder.imported;
+      this.indentationString = builder.indentationString;
+      this.lineSeparator = builder.lineSeparator;
+      this.maxColumn = builder.maxColumn;
+      this.omitJavaLangPackage = builder.omitJavaLangPackage;
+      this.renderCacheEnabled = builder.renderCacheEnabled;
+      this.renderPool = builder.renderPool;
+    }
+
+    /** Return these settings without the imported predicate and the render pool. */
+    Configuration detached() {
+      if (imported == DEFAULT.imported && renderPool == null) {
+        return this;
+      }
+      return builder()
+          .setIndentationString(indentationString)
+          .setLineSeparator(lineSeparator)
+          .setMaxColumn(maxColumn)
+          .setOmitJavaLangPackage(omitJavaLangPackage)
+          .setRenderCacheEnabled(renderCacheEnabled)
+          .configuration();
+    }
   }
 
   public static final Pattern METHODCHAIN_PATTERN = Pattern.compile("\\{|\\.|\\}");
   public static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{.+?\\}");
 
+  /** Number of collected lines held back from a streaming target. */
+  private static final int TAIL_WINDOW = 2;
+
+  /** Number of collected chars that triggers writing to a streaming target. */
+  private static final int WRITE_THRESHOLD = 8192;
+
+  /** Minimum number of listables rendered in parallel, shorter lists are rendered sequentially. */
+  private static final int PARALLEL_THRESHOLD = 8;
+
+  /** Minimum number of listables rendered by one parallel task. */
+  private static final int PARALLEL_BATCH = 4;
+
+  /** Maximum number of idle listings held per thread. */
+  private static final int POOL_SIZE = 8;
+
+  /** Maximum buffer capacity, in chars, a pooled listing retains when reset. */
+  private static final int POOL_RETAINED_CAPACITY = 64 * 1024;
+
+  private static final ThreadLocal<Deque<Listing>> POOL =
+      ThreadLocal.withInitial(() -> new ArrayDeque<>(POOL_SIZE));
+
+  /**
+   * Return an idle listing of the current thread's pool, or a new one, using the given settings.
+   *
+   * <p>Hand it back via {@link #release()} when done. Nested calls are fine, each one gets its own
+   * instance.
+   */
+  public static Listing acquire(Configuration configuration) {
+    Listing listing = POOL.get().poll();
+    if (listing == null) {
+      return new Listing(configuration, null);
+    }
+    listing.configure(configuration);
+    listing.released = false;
+    return listing;
+  }
+
   public static Builder builder() {
     return new Builder();
   }
 
-  private final Deque<String> collectedLines = new ArrayDeque<>(512);
+  private char[] buffer = new char[4096];
+  private int bufferLength = 0;
+  private Configuration configuration;
   private final StringBuilder currentLine = new StringBuilder(512);
-  private final Predicate<Name> imported;
+  private boolean flushedLineEmpty = true;
+  private int flushedLines = 0;
+  private Predicate<Name> imported;
   private int indentationDepth = 0;
-  private final String indentationString;
-  private final String lineSeparator;
+  private char[] indentationPrefix = new char[0];
+  private String indentationString;
+  private int lineCount = 0;
+  private String lineSeparator;
+  private int[] lineStarts = new int[256];
+  private int maxColumn;
   private final Deque<String> nameStack = new ArrayDeque<>(8);
-  private final boolean omitJavaLangPackage;
+  private boolean omitJavaLangPackage;
+  private boolean precedingLineEmpty = true;
+  private int removalMark = Integer.MAX_VALUE;
+  private boolean renderCacheEnabled;
+  private boolean released = false;
+  private ForkJoinPool renderPool;
+  private RetainedRender retainedRender = null;
+  private SourceMap sourceMap = null;
+  private final Appendable target;
+  private int trimmableLines = 0;
+  private boolean trimmedBeyondStart = false;
+  private int trimmedLines = 0;
+  private boolean wrapping = false;
 
   public Listing() {
-    this(builder());
+    this(Configuration.DEFAULT, null);
   }
 
   public Listing(Builder builder) {
-    this.lineSeparator = builder.lineSeparator;
-    this.indentationString = builder.indentationString;
-    this.omitJavaLangPackage = builder.omitJavaLangPackage;
-    this.imported = builder.imported;
+    this(builder.configuration(), builder.target);
+    this.sourceMap = builder.sourceMap;
+  }
+
+  public Listing(Configuration configuration, Appendable target) {
+    configure(configuration);
+    this.target = target;
   }
 
   public Listing add(char character) {
@@ -124,9 +306,134 @@ public class Listing {
    * Add list of listables using given textual separator inline.
    *
    * <p>For example: {@code "a, b, c"}, {@code "a & b & c"} or {@code "[][][]"}
+   *
+   * <p>If a maximum column is set and the separator ends with a space, an element exceeding the
+   * maximum column is moved to a new continuation line, indented by two more levels. The text of
+   * the separator following an element, without its trailing space, counts towards the element.
+   * The trailing space of the separator is dropped. Lists nested within a wrapping list are not
+   * wrapped.
    */
   public Listing add(List<? extends Listable> listables, CharSequence separator) {
-    return add(listables, listing -> listing.add(separator));
+    return add(listables, separator, 0);
+  }
+
+  /**
+   * Add list of listables using given textual separator inline, reserving columns after it.
+   *
+   * <p>The reserved columns are taken by text following the list on the same line, like a closing
+   * parenthesis. They count towards the last element when wrapping.
+   *
+   * @see #add(List, CharSequence)
+   */
+  public Listing add(List<? extends Listable> listables, CharSequence separator, int reserved) {
+    int length = separator.length();
+    if (maxColumn == 0 || wrapping || length == 0 || separator.charAt(length - 1) != ' ') {
+      return add(listables, listing -> listing.add(separator));
+    }
+    // the separator stays on the line of the preceding element, without its trailing spaces
+    int pending = length;
+    while (pending > 0 && separator.charAt(pending - 1) == ' ') {
+      pending--;
+    }
+    wrapping = true;
+    try {
+      int size = listables.size();
+      for (int i = 0; i < size; i++) {
+        if (i > 0) {
+          currentLine.append(separator);
+        }
+        int line = getCurrentLineNumber();
+        int mark = currentLine.length();
+        add(listables.get(i));
+        int end = getColumn() + (i + 1 < size ? pending : reserved);
+        if (i > 0 && line == getCurrentLineNumber() && end > maxColumn) {
+          wrap(mark);
+        }
+      }
+    } finally {
+      wrapping = false;
+    }
+    return this;
+  }
+
+  /**
+   * Add list of listables using given listable separator, rendering them in parallel if a render
+   * pool is configured and the list is long enough to pay off.
+   *
+   * <p>The listables are split into contiguous batches, each rendered into a branch listing
+   * starting from this listing's indentation depth and name stack. A batch assumes the state the
+   * separator leaves behind. Branches are spliced back in order. A branch whose assumed start state
+   * turns out to be wrong is discarded and its batch is rendered sequentially, so the result always
+   * equals {@link #add(List, Listable)}.
+   */
+  public Listing addParallel(List<? extends Listable> listables, Listable separator) {
+    int size = listables.size();
+    if (renderPool == null
+        || size < PARALLEL_THRESHOLD
+        || retainedRender != null
+        || sourceMap != null) {
+      return add(listables, separator);
+    }
+    String[] names = nameStack.toArray(new String[nameStack.size()]);
+    boolean separated = predictLastLineEmpty(separator);
+    // a few batches per worker balance listables of uneven size
+    int batches = 4 * renderPool.getParallelism();
+    int batch = Math.max(PARALLEL_BATCH, (size + batches - 1) / batches);
+    List<ForkJoinTask<Listing>> tasks = new ArrayList<>(size / batch + 1);
+    for (int from = 0; from < size; from += batch) {
+      int start = from;
+      int end = Math.min(size, from + batch);
+      Listing branch = branch(from == 0 ? isLastLineEmpty() : separated);
+      ForkJoinTask<Listing> task =
+          ForkJoinTask.adapt(() -> branch.addRange(listables, separator, start, end));
+      if (ForkJoinTask.getPool() == renderPool) {
+        task.fork();
+      } else {
+        renderPool.execute(task);
+      }
+      tasks.add(task);
+    }
+    int depth = indentationDepth;
+    for (int index = 0; index < tasks.size(); index++) {
+      int from = index * batch;
+      if (index > 0) {
+        separator.apply(this);
+      }
+      Listing branch = tasks.get(index).join();
+      boolean valid = currentLine.length() == 0 && !branch.trimmedBeyondStart;
+      valid = valid && isLastLineEmpty() == (index == 0 ? branch.flushedLineEmpty : separated);
+      valid = valid && indentationDepth == depth && isNameStack(names);
+      if (valid) {
+        splice(branch);
+      } else {
+        addRange(listables, separator, from, Math.min(size, from + batch));
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Add the listable, moving it to a new continuation line if it ends beyond the maximum column.
+   *
+   * <p>The reserved columns are taken by text following the listable on the same line. Spaces in
+   * front of a moved listable are dropped. Within a wrapping list, the listable is never moved.
+   */
+  public Listing addWrapped(Listable listable, int reserved) {
+    if (maxColumn == 0 || wrapping) {
+      return add(listable);
+    }
+    int line = getCurrentLineNumber();
+    int mark = currentLine.length();
+    wrapping = true;
+    try {
+      add(listable);
+    } finally {
+      wrapping = false;
+    }
+    if (line == getCurrentLineNumber() && getColumn() + reserved > maxColumn) {
+      wrap(mark);
+    }
+    return this;
   }
 
   /** Applies the passed listable instance to this listing. */
@@ -138,78 +445,85 @@ public class Listing {
     if (listable instanceof Name) {
       return add((Name) listable);
     }
+    if (retainedRender != null && listable instanceof Retainable && currentLine.length() == 0) {
+      return retainedRender.add(this, (Retainable) listable);
+    }
+    if (sourceMap != null && listable instanceof Stamped) {
+      int index = sourceMap.enter(listable, getCurrentLineNumber());
+      listable.apply(this);
+      sourceMap.exit(index, getCurrentLineNumber() + (currentLine.length() > 0 ? 1 : 0));
+      return this;
+    }
     return listable.apply(this);
   }
 
   /** Add name respecting name map. */
   public Listing add(Name name) {
     // never call `name.apply(this)` here - looping alert!
-    if (imported.test(name)) {
-      return add(name.getLastSimpleName());
+    if (!renderCacheEnabled) {
+      return add(text(name));
     }
-    // "java.lang" member
-    if (omitJavaLangPackage && name.isJavaLangPackage()) {
-      return add(String.join(".", name.getSimpleNames()));
+    // the text of a name only depends on its immutable symbol and the settings
+    RenderCache cache = name.getRenderCache();
+    String text = cache.get(this, 0);
+    if (text == null) {
+      text = text(name);
+      cache.put(0, this, text);
     }
-    return add(name.getCanonicalName());
+    return add(text);
   }
 
   /**
    * Parse source string and replace placeholder with {@link #add()}-calls to this {@link Listing}
    * instance.
+   *
+   * @see Template
    */
   public Listing add(String source, Object... args) {
-    Matcher matcher = PLACEHOLDER_PATTERN.matcher(source);
+    return Template.of(source).apply(this, args);
+  }
 
-    int argumentIndex = 0;
-    int sourceIndex = 0;
-    while (matcher.find()) {
-      if (sourceIndex < matcher.start()) {
-        add(source.substring(sourceIndex, matcher.start()));
-      }
-      sourceIndex = matcher.end();
-      // handle simple placeholder
-      String placeholder = matcher.group(0);
-      if (placeholder.equals("{S}")) {
-        add(Tool.escape(args[argumentIndex++].toString()));
-        continue;
-      }
-      if (placeholder.equals("{N}")) {
-        add(Name.cast(args[argumentIndex++]));
-        continue;
-      }
-      if (placeholder.equals("{L}")) {
-        add((Listable) args[argumentIndex++]);
-        continue;
-      }
-      // convert unknown placeholder to chained method call sequence
-      Object argument = args[argumentIndex++];
-      Scanner scanner = new Scanner(placeholder);
-      try {
-        scanner.useDelimiter(METHODCHAIN_PATTERN);
-        Object result = argument;
-        while (scanner.hasNext()) {
-          result = result.getClass().getMethod(scanner.next()).invoke(result);
-        }
-        if (result instanceof Optional) {
-          result = ((Optional<?>) result).get();
-        }
-        if (result instanceof Name) {
-          add((Name) result);
-          continue;
-        }
-        if (result instanceof Listable) {
-          add((Listable) result);
-          continue;
-        }
-        add(String.valueOf(result));
-        scanner.close();
-      } catch (Exception exception) {
-        throw new IllegalArgumentException(
-            "error parsing: '" + placeholder + "' source='" + source + "'", exception);
+  /**
+   * Write all held back lines and the current line to the streaming target.
+   *
+   * <p>Does nothing if this listing has no target.
+   */
+  public Listing flush() {
+    if (target == null) {
+      return this;
+    }
+    write(lineCount);
+    try {
+      target.append(currentLine);
+      if (target instanceof Flushable) {
+        ((Flushable) target).flush();
       }
+    } catch (IOException exception) {
+      throw new UncheckedIOException("flushing listing failed", exception);
+    }
+    currentLine.setLength(0);
+    return this;
+  }
+
+  /**
+   * Grow the buffers, if needed, to hold the given number of chars and lines at once.
+   *
+   * <p>Streaming listings never grow beyond a few write chunks. The estimated length is enlarged by
+   * the line separators and an average indentation.
+   */
+  public Listing ensureCapacity(int length, int lines) {
+    int perLine = lineSeparator.length() + 2 * indentationString.length();
+    long chars = bufferLength + (long) length + (long) lines * perLine;
+    if (target != null) {
+      chars = Math.min(chars, 2 * WRITE_THRESHOLD);
+      lines = Math.min(lines, WRITE_THRESHOLD / 8);
+    }
+    if (chars > buffer.length) {
+      buffer = Arrays.copyOf(buffer, (int) Math.min(chars, Integer.MAX_VALUE - 8));
+    }
+    if (lineCount + lines > lineStarts.length) {
+      lineStarts = Arrays.copyOf(lineStarts, lineCount + lines);
     }
-    add(source.substring(sourceIndex));
     return this;
   }
 
@@ -221,8 +535,43 @@ public class Listing {
     return add(args.length == 0 ? format : String.format(format, args));
   }
 
+  /**
+   * Return a copy of the collected lines, not including their line separators.
+   *
+   * <p>Modifying the returned deque does not change this listing any more.
+   *
+   * @deprecated use {@link #getLines()}, a view that does not copy the lines
+   */
+  @Deprecated
   public Deque<String> getCollectedLines() {
-    return collectedLines;
+    return new ArrayDeque<>(getLines());
+  }
+
+  /** Return read-only view of the collected lines, not including their line separators. */
+  public List<String> getLines() {
+    return new AbstractList<String>() {
+      @Override
+      public String get(int index) {
+        if (index < 0 || index >= lineCount) {
+          throw new IndexOutOfBoundsException("index=" + index + ", size=" + lineCount);
+        }
+        return new String(buffer, lineStarts[index], lineLength(index));
+      }
+
+      @Override
+      public int size() {
+        return lineCount;
+      }
+    };
+  }
+
+  /** Return the column the next char is added at, starting with zero. */
+  public int getColumn() {
+    return indentationDepth * indentationString.length() + currentLine.length();
+  }
+
+  public Configuration getConfiguration() {
+    return configuration;
   }
 
   public StringBuilder getCurrentLine() {
@@ -230,7 +579,7 @@ public class Listing {
   }
 
   public int getCurrentLineNumber() {
-    return collectedLines.size() + 1;
+    return flushedLines + lineCount + 1;
   }
 
   public Predicate<Name> getImported() {
@@ -249,10 +598,22 @@ public class Listing {
     return lineSeparator;
   }
 
+  public int getMaxColumn() {
+    return maxColumn;
+  }
+
   public Deque<String> getNameStack() {
     return nameStack;
   }
 
+  public Optional<ForkJoinPool> getRenderPool() {
+    return Optional.ofNullable(renderPool);
+  }
+
+  public Optional<Appendable> getTarget() {
+    return Optional.ofNullable(target);
+  }
+
   public Listing indent(int times) {
     indentationDepth += times;
     if (indentationDepth < 0) {
@@ -262,38 +623,38 @@ public class Listing {
   }
 
   public boolean isLastLineEmpty() {
-    if (collectedLines.isEmpty()) {
-      return true;
+    if (lineCount == 0) {
+      return flushedLineEmpty;
     }
-    return collectedLines.getLast().isEmpty();
+    return lineLength(lineCount - 1) == 0;
   }
 
   public boolean isOmitJavaLangPackage() {
     return omitJavaLangPackage;
   }
 
+  public boolean isRenderCacheEnabled() {
+    return renderCacheEnabled;
+  }
+
   /** Carriage return and line feed. */
   public Listing newline() {
-    String newline = currentLine.toString(); // Tool.trimRight(currentLine.toString());
-    currentLine.setLength(0);
+    int length = currentLine.length();
     // trivial case: empty line (only add it if last line is not empty)
-    if (newline.isEmpty()) {
+    if (length == 0) {
       if (!isLastLineEmpty()) {
-        collectedLines.add("");
+        collect(0, 0);
       }
       return this;
     }
-    // trivial case: no indentation, just add the line
-    if (indentationDepth == 0) {
-      collectedLines.add(newline);
-      return this;
+    // copy indentation prefix and current line into the buffer
+    int indentation = indentationDepth * indentationString.length();
+    int start = collect(indentation, length);
+    if (indentation > 0) {
+      System.arraycopy(indentationPrefix(indentation), 0, buffer, start, indentation);
     }
-    // "insert" indentation pattern in front of the new line
-    int capacity = indentationDepth * indentationString.length() + newline.length();
-    StringBuilder indentedLine = new StringBuilder(capacity);
-    IntStream.range(0, indentationDepth).forEach(i -> indentedLine.append(indentationString));
-    indentedLine.append(newline);
-    collectedLines.add(indentedLine.toString());
+    currentLine.getChars(0, length, buffer, start + indentation);
+    currentLine.setLength(0);
     return this;
   }
 
@@ -310,12 +671,54 @@ public class Listing {
     return this;
   }
 
+  /**
+   * Returns the collected text.
+   *
+   * <p>If this listing streams to a target, only the text not yet written is returned.
+   */
   @Override
   public String toString() {
-    if (collectedLines.isEmpty()) {
+    if (bufferLength == 0) {
       return currentLine.toString();
     }
-    return String.join(lineSeparator, collectedLines) + lineSeparator + currentLine.toString();
+    StringBuilder builder = new StringBuilder(bufferLength + currentLine.length());
+    return builder.append(buffer, 0, bufferLength).append(currentLine).toString();
+  }
+
+  /**
+   * Return this listing to the pool of the current thread.
+   *
+   * <p>The listing is {@link #reset() reset} and must not be used by the caller afterwards.
+   * Listings streaming to a target are never pooled.
+   *
+   * @throws IllegalStateException if this listing was already released
+   */
+  public void release() {
+    if (released) {
+      throw new IllegalStateException("listing already released");
+    }
+    released = true;
+    if (target != null) {
+      return;
+    }
+    Deque<Listing> pool = POOL.get();
+    if (pool.size() < POOL_SIZE) {
+      clear();
+      configure(Configuration.DEFAULT);
+      pool.push(this);
+    }
+  }
+
+  /**
+   * Discard all collected text and state, retaining the formatting settings and allocated buffers.
+   *
+   * <p>The imported predicate and the render pool are dropped, as they may reference a model or
+   * threads no longer in use. Buffers grown beyond a sane size are replaced by small ones.
+   */
+  public Listing reset() {
+    clear();
+    configure(configuration.detached());
+    return this;
   }
 
   /** Removes empty lines from the end of the collected lines. */
@@ -323,12 +726,314 @@ public class Listing {
     while (currentLine.length() > 0 && currentLine.lastIndexOf(" ") == currentLine.length() - 1) {
       currentLine.setLength(currentLine.length() - 1);
     }
-    while (isLastLineEmpty()) {
-      if (collectedLines.isEmpty()) {
-        return this;
-      }
-      collectedLines.removeLast();
+    int lines = 0;
+    while (lines < lineCount && lineLength(lineCount - 1 - lines) == 0) {
+      lines++;
+    }
+    // empty lines in front of a branch are owned by its parents and removed when spliced
+    if (lines == lineCount && flushedLineEmpty) {
+      lines += trimmableLines;
+    }
+    removeLines(lines);
+    // an empty line already written to the target or assumed by a parallel branch remains
+    trimmedBeyondStart |= lineCount == 0 && flushedLineEmpty;
+    return this;
+  }
+
+  /** Add the listables from index {@code from}, inclusive, to {@code to}, exclusive, separated. */
+  private Listing addRange(
+      List<? extends Listable> listables, Listable separator, int from, int to) {
+    add(listables.get(from));
+    for (int index = from + 1; index < to; index++) {
+      separator.apply(this);
+      add(listables.get(index));
     }
     return this;
   }
+
+  /**
+   * Create empty listing continuing with the current state, it may trim the trailing empty lines.
+   *
+   * <p>Lines trimmed by the branch that it did not collect itself are removed from this listing
+   * when the branch is spliced.
+   */
+  Listing branch() {
+    Listing branch = branch(isLastLineEmpty());
+    branch.trimmableLines = countTrimmableLines();
+    branch.precedingLineEmpty = isTrimmedLineEmpty();
+    return branch;
+  }
+
+  /** Create empty listing continuing with the current line number, indentation and name stack. */
+  Listing branch(boolean lastLineEmpty) {
+    Listing branch = new Listing(configuration, null);
+    branch.flushedLineEmpty = lastLineEmpty;
+    branch.flushedLines = flushedLines + lineCount;
+    branch.indentationDepth = indentationDepth;
+    branch.retainedRender = retainedRender;
+    nameStack.descendingIterator().forEachRemaining(branch.nameStack::push);
+    return branch;
+  }
+
+  /** Discard all collected text and state, retaining the settings and allocated buffers. */
+  private void clear() {
+    if (buffer.length > POOL_RETAINED_CAPACITY) {
+      buffer = new char[4096];
+      lineStarts = new int[256];
+    }
+    bufferLength = 0;
+    currentLine.setLength(0);
+    if (currentLine.capacity() > POOL_RETAINED_CAPACITY) {
+      currentLine.trimToSize();
+      currentLine.ensureCapacity(512);
+    }
+    flushedLineEmpty = true;
+    flushedLines = 0;
+    indentationDepth = 0;
+    lineCount = 0;
+    nameStack.clear();
+    precedingLineEmpty = true;
+    removalMark = Integer.MAX_VALUE;
+    retainedRender = null;
+    sourceMap = null;
+    trimmableLines = 0;
+    trimmedBeyondStart = false;
+    trimmedLines = 0;
+    wrapping = false;
+  }
+
+  /**
+   * Reserve space for a new line in the buffer, writing old lines to the target if present.
+   *
+   * @return buffer offset of the new line
+   */
+  private int collect(int indentation, int length) {
+    if (target != null && bufferLength >= WRITE_THRESHOLD && lineCount > TAIL_WINDOW) {
+      write(lineCount - TAIL_WINDOW);
+    }
+    int separator = lineSeparator.length();
+    int start = bufferLength;
+    int end = start + indentation + length + separator;
+    if (end > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(end, buffer.length * 2));
+    }
+    if (lineCount == lineStarts.length) {
+      lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+    }
+    lineSeparator.getChars(0, separator, buffer, end - separator);
+    lineStarts[lineCount++] = start;
+    bufferLength = end;
+    return start;
+  }
+
+  /** Return number of trailing empty lines a branch created now removes when it trims. */
+  int countTrimmableLines() {
+    int lines = 0;
+    while (lines < lineCount && lineLength(lineCount - 1 - lines) == 0) {
+      lines++;
+    }
+    return lines == lineCount ? lines + trimmableLines : lines;
+  }
+
+  /** Apply settings, dropping the indentation prefix table if the indentation string changes. */
+  private void configure(Configuration configuration) {
+    if (!configuration.indentationString.equals(indentationString)) {
+      indentationPrefix = new char[0];
+    }
+    this.configuration = configuration;
+    this.imported = configuration.imported;
+    this.indentationString = configuration.indentationString;
+    this.lineSeparator = configuration.lineSeparator;
+    this.maxColumn = configuration.maxColumn;
+    this.omitJavaLangPackage = configuration.omitJavaLangPackage;
+    this.renderCacheEnabled = configuration.renderCacheEnabled;
+    this.renderPool = configuration.renderPool;
+  }
+
+  /** Return indentation prefix table holding at least the given number of chars. */
+  private char[] indentationPrefix(int length) {
+    if (indentationPrefix.length < length) {
+      int step = indentationString.length();
+      char[] prefix = Arrays.copyOf(indentationPrefix, Math.max(length, step * 8));
+      for (int i = indentationPrefix.length; i < prefix.length; i += step) {
+        indentationString.getChars(0, Math.min(step, prefix.length - i), prefix, i);
+      }
+      indentationPrefix = prefix;
+    }
+    return indentationPrefix;
+  }
+
+  /** Return number of lines collected by the parents of this branch it removed by trimming. */
+  int getTrimmedLines() {
+    return trimmedLines;
+  }
+
+  /** Return whether the last line is empty after removing all trimmable lines. */
+  boolean isTrimmedLineEmpty() {
+    if (countTrimmableLines() < lineCount) {
+      return false;
+    }
+    return trimmableLines > 0 ? precedingLineEmpty : flushedLineEmpty;
+  }
+
+  /** Return whether {@link #trim()} left an empty line in front of this listing behind. */
+  boolean isTrimmedBeyondStart() {
+    return trimmedBeyondStart;
+  }
+
+  /** Return {@code true} if the name stack holds exactly the given names, top first. */
+  private boolean isNameStack(String[] names) {
+    if (nameStack.size() != names.length) {
+      return false;
+    }
+    int index = 0;
+    for (String name : nameStack) {
+      if (!name.equals(names[index++])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Return length of the collected line at the given index, excluding the line separator. */
+  private int lineLength(int index) {
+    int end = index + 1 < lineCount ? lineStarts[index + 1] : bufferLength;
+    return end - lineStarts[index] - lineSeparator.length();
+  }
+
+  /** Return whether the last line is empty after applying the separator to a finished line. */
+  private boolean predictLastLineEmpty(Listable separator) {
+    Listing probe = new Listing(configuration, null);
+    probe.flushedLineEmpty = false;
+    separator.apply(probe);
+    return probe.isLastLineEmpty();
+  }
+
+  /**
+   * Remove the given number of trailing empty lines, the ones in front of a branch included.
+   *
+   * <p>The lowest line number left behind is recorded as the removal mark.
+   */
+  private void removeLines(int lines) {
+    if (lines == 0) {
+      return;
+    }
+    int own = Math.min(lines, lineCount);
+    lineCount -= own;
+    bufferLength = lineCount == 0 ? 0 : lineStarts[lineCount];
+    if (lines > own) {
+      flushedLines -= lines - own;
+      flushedLineEmpty = precedingLineEmpty;
+      trimmableLines = 0;
+      trimmedLines += lines - own;
+    }
+    removalMark = Math.min(removalMark, flushedLines + lineCount);
+  }
+
+  /**
+   * Return the lowest number of lines left behind by removing lines since the last call.
+   *
+   * <p>Returns {@link Integer#MAX_VALUE} if no line was removed.
+   */
+  int resetRemovalMark() {
+    int mark = removalMark;
+    removalMark = Integer.MAX_VALUE;
+    return mark;
+  }
+
+  /** Intercept retainable listables and let the given retained render handle them. */
+  void setRetainedRender(RetainedRender retainedRender) {
+    this.retainedRender = retainedRender;
+  }
+
+  /** Record the line ranges rendered by each model node into the given source map. */
+  void setSourceMap(SourceMap sourceMap) {
+    this.sourceMap = sourceMap;
+  }
+
+  /** Append all lines and the current line of the branch to this listing, adopting its state. */
+  void splice(Listing branch) {
+    removeLines(branch.trimmedLines);
+    trimmedBeyondStart |= branch.trimmedBeyondStart;
+    int lines = branch.lineCount;
+    if (lines > 0) {
+      if (target != null && bufferLength >= WRITE_THRESHOLD && lineCount > TAIL_WINDOW) {
+        write(lineCount - TAIL_WINDOW);
+      }
+      int end = bufferLength + branch.bufferLength;
+      if (end > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(end, buffer.length * 2));
+      }
+      if (lineCount + lines > lineStarts.length) {
+        lineStarts = Arrays.copyOf(lineStarts, Math.max(lineCount + lines, lineStarts.length * 2));
+      }
+      System.arraycopy(branch.buffer, 0, buffer, bufferLength, branch.bufferLength);
+      for (int i = 0; i < lines; i++) {
+        lineStarts[lineCount + i] = bufferLength + branch.lineStarts[i];
+      }
+      lineCount += lines;
+      bufferLength = end;
+    }
+    currentLine.append(branch.currentLine);
+    indentationDepth = branch.indentationDepth;
+    nameStack.clear();
+    branch.nameStack.descendingIterator().forEachRemaining(nameStack::push);
+  }
+
+  /** Append the lines from index {@code from}, inclusive, to {@code to}, exclusive, as they are. */
+  void splice(String[] lines, int from, int to) {
+    for (int index = from; index < to; index++) {
+      String line = lines[index];
+      line.getChars(0, line.length(), buffer, collect(0, line.length()));
+    }
+  }
+
+  /** Return the name as text, respecting imported names and the "java.lang" package setting. */
+  private String text(Name name) {
+    if (imported.test(name)) {
+      return name.getLastSimpleName();
+    }
+    // "java.lang" member
+    if (omitJavaLangPackage && name.isJavaLangPackage()) {
+      return String.join(".", name.getSimpleNames());
+    }
+    return name.getCanonicalName();
+  }
+
+  /** Move the text of the current line starting at the mark to a new continuation line. */
+  private void wrap(int mark) {
+    int end = mark;
+    while (end > 0 && currentLine.charAt(end - 1) == ' ') {
+      end--;
+    }
+    if (end == 0) {
+      return;
+    }
+    String moved = currentLine.substring(mark);
+    currentLine.setLength(end);
+    newline();
+    currentLine.append(indentationString).append(indentationString).append(moved);
+  }
+
+  /** Write the given number of lines, each followed by the line separator, to the target. */
+  private void write(int lines) {
+    if (lines == 0) {
+      return;
+    }
+    int end = lines < lineCount ? lineStarts[lines] : bufferLength;
+    try {
+      target.append(CharBuffer.wrap(buffer, 0, end));
+    } catch (IOException exception) {
+      throw new UncheckedIOException("writing line " + (flushedLines + 1) + " failed", exception);
+    }
+    flushedLines += lines;
+    flushedLineEmpty = lineLength(lines - 1) == 0;
+    // shift remaining lines to the front
+    System.arraycopy(buffer, end, buffer, 0, bufferLength - end);
+    bufferLength -= end;
+    lineCount -= lines;
+    for (int i = 0; i < lineCount; i++) {
+      lineStarts[i] = lineStarts[i + lines] - end;
+    }
+  }
 }
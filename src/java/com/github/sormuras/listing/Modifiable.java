@@ -53,6 +53,18 @@ public interface Modifiable {
     getModifiers().addAll(asList(modifiers));
   }
 
+  /** Return estimated length of all modifiers including their separators. */
+  default int estimateModifiersLength() {
+    if (!isModified()) {
+      return 0;
+    }
+    int length = 0;
+    for (Modifier modifier : getModifiers()) {
+      length += modifier.name().length() + 1;
+    }
+    return length;
+  }
+
   /** Return set of modifiers indicating if the caller might mutate the set. */
   Set<Modifier> getModifiers();
 
@@ -0,0 +1,510 @@
+/*
+ * Copyright (C) 2016 Christian Stein
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.github.sormuras.listing;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Global mutation epoch of the model and mutation stamps of its nodes.
+ *
+ * <p>Every change of a tracked node, be it via a setter or via one of the collections created by
+ * {@link #trackedList()}, {@link #trackedMap()} and {@link #trackedSet(Set)}, advances the epoch.
+ * The changed node or collection records the new epoch as its stamp. Values derived from a
+ * subtree, like a {@link RenderCache} entry, stay valid as long as the subtree's {@link
+ * Stamped#getMutationStamp() stamp} does not change, no matter what changes elsewhere.
+ *
+ * <p>Cached stamps of a subtree are invalidated by its changes only, see {@link Hub}.
+ */
+public final class Mutation {
+
+  /**
+   * Validity of a cached stamp and registry of the caches depending on a tracked source.
+   *
+   * <p>A stamp computed via {@link Mutation#stamp(Hub, LongSupplier)} registers its hub with the
+   * hub of every tracked node or collection read. A change of a source invalidates the hubs
+   * registered with it, their dependents in turn, and forgets them. An invalidated hub registers
+   * again when its stamp is computed again. A change therefore only walks up the paths of caches
+   * that actually depend on it, the rest of the model stays valid.
+   *
+   * <p>If an untracked {@link Stamped} node is read, the computed stamp is only valid as long as
+   * the {@link #epoch()} does not change.
+   */
+  public static final class Hub implements Serializable {
+
+    private static final Hub[] NONE = new Hub[0];
+
+    private transient Hub[] dependents = NONE;
+    private transient Set<Hub> dependentSet = null;
+    private transient long epoch = 0;
+    private boolean frozen = false;
+    private transient int size = 0;
+    private transient volatile long stamp = 0;
+    private transient volatile boolean untracked = false;
+    private transient volatile boolean valid = false;
+
+    /** Record a change of the source, invalidate all dependents and return the new stamp. */
+    public long changed() {
+      long stamp = advance();
+      invalidate();
+      return stamp;
+    }
+
+    /** Stop registering dependents, the source does not change any more. */
+    public synchronized void freeze() {
+      frozen = true;
+      dependents = NONE;
+      dependentSet = null;
+      size = 0;
+    }
+
+    /** Return the stamp computed last. */
+    public long getStamp() {
+      return stamp;
+    }
+
+    /** Return {@code true} if the stamp computed last is still valid. */
+    public boolean isValid() {
+      return valid && (!untracked || epoch == epoch());
+    }
+
+    /** Register the dependent, a hub of a stamp being computed, unless it is already known. */
+    synchronized void add(Hub dependent) {
+      if (frozen || dependent == this) {
+        return;
+      }
+      if (dependentSet != null) {
+        dependentSet.add(dependent);
+        return;
+      }
+      if (dependents == null) {
+        dependents = NONE;
+      }
+      for (int index = 0; index < size; index++) {
+        if (dependents[index] == dependent) {
+          return;
+        }
+      }
+      // many dependents, like readers of a type instance used all over the model, need a set
+      if (size == 8) {
+        dependentSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        dependentSet.addAll(Arrays.asList(dependents).subList(0, size));
+        dependentSet.add(dependent);
+        return;
+      }
+      if (size == dependents.length) {
+        dependents = Arrays.copyOf(dependents, Math.max(2, size * 2));
+      }
+      dependents[size++] = dependent;
+    }
+
+    /** Invalidate this hub and, recursively, all dependents registered with it. */
+    private void invalidate() {
+      valid = false;
+      Collection<Hub> hubs;
+      synchronized (this) {
+        if (dependentSet != null) {
+          hubs = dependentSet;
+        } else if (size > 0) {
+          hubs = Arrays.asList(dependents).subList(0, size);
+        } else {
+          return;
+        }
+        dependents = NONE;
+        dependentSet = null;
+        size = 0;
+      }
+      hubs.forEach(Hub::invalidate);
+    }
+  }
+
+  /** Tracked node notifying the caches depending on its stamp via its hub. */
+  public interface Source extends Stamped {
+    Hub getHub();
+  }
+
+  /** Collection recording the epoch of its latest change. */
+  interface Tracked {
+    Hub getHub();
+
+    long getStamp();
+  }
+
+  /** List advancing the epoch on every structural or element change. */
+  static final class TrackedList<E> extends AbstractList<E>
+      implements RandomAccess, Serializable, Tracked {
+
+    private final ArrayList<E> elements = new ArrayList<>();
+    private final Hub hub;
+    private long stamp = 0;
+
+    TrackedList(Hub hub) {
+      this.hub = hub;
+    }
+
+    @Override
+    public void add(int index, E element) {
+      elements.add(index, element);
+      stamp = hub.changed();
+    }
+
+    @Override
+    public E get(int index) {
+      return elements.get(index);
+    }
+
+    @Override
+    public Hub getHub() {
+      return hub;
+    }
+
+    @Override
+    public long getStamp() {
+      return stamp;
+    }
+
+    @Override
+    public E remove(int index) {
+      E removed = elements.remove(index);
+      stamp = hub.changed();
+      return removed;
+    }
+
+    @Override
+    public E set(int index, E element) {
+      E replaced = elements.set(index, element);
+      stamp = hub.changed();
+      return replaced;
+    }
+
+    @Override
+    public int size() {
+      return elements.size();
+    }
+  }
+
+  /** Insertion-ordered map advancing the epoch on every change. */
+  static final class TrackedMap<K, V> extends AbstractMap<K, V> implements Serializable, Tracked {
+
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>();
+    private final Hub hub;
+    private long stamp = 0;
+
+    TrackedMap(Hub hub) {
+      this.hub = hub;
+    }
+
+    @Override
+    public void clear() {
+      if (entries.isEmpty()) {
+        return;
+      }
+      entries.clear();
+      stamp = hub.changed();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return entries.containsKey(key);
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+      return new AbstractSet<Map.Entry<K, V>>() {
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+          Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+          return new Iterator<Map.Entry<K, V>>() {
+            @Override
+            public boolean hasNext() {
+              return iterator.hasNext();
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+              Map.Entry<K, V> entry = iterator.next();
+              return new SimpleEntry<K, V>(entry) {
+                @Override
+                public V setValue(V value) {
+                  super.setValue(value);
+                  return put(entry.getKey(), value);
+                }
+              };
+            }
+
+            @Override
+            public void remove() {
+              iterator.remove();
+              stamp = hub.changed();
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return entries.size();
+        }
+      };
+    }
+
+    @Override
+    public V get(Object key) {
+      return entries.get(key);
+    }
+
+    @Override
+    public Hub getHub() {
+      return hub;
+    }
+
+    @Override
+    public long getStamp() {
+      return stamp;
+    }
+
+    @Override
+    public V put(K key, V value) {
+      V replaced = entries.put(key, value);
+      stamp = hub.changed();
+      return replaced;
+    }
+
+    @Override
+    public V remove(Object key) {
+      if (!entries.containsKey(key)) {
+        return null;
+      }
+      V removed = entries.remove(key);
+      stamp = hub.changed();
+      return removed;
+    }
+
+    @Override
+    public int size() {
+      return entries.size();
+    }
+  }
+
+  /** Set view advancing the epoch whenever the backing set actually changes. */
+  static final class TrackedSet<E> extends AbstractSet<E> implements Serializable, Tracked {
+
+    private final Set<E> elements;
+    private final Hub hub;
+    private long stamp = 0;
+
+    TrackedSet(Set<E> elements, Hub hub) {
+      this.elements = elements;
+      this.hub = hub;
+    }
+
+    @Override
+    public boolean add(E element) {
+      boolean added = elements.add(element);
+      if (added) {
+        stamp = hub.changed();
+      }
+      return added;
+    }
+
+    @Override
+    public boolean contains(Object element) {
+      return elements.contains(element);
+    }
+
+    @Override
+    public Hub getHub() {
+      return hub;
+    }
+
+    @Override
+    public long getStamp() {
+      return stamp;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+      Iterator<E> iterator = elements.iterator();
+      return new Iterator<E>() {
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public E next() {
+          return iterator.next();
+        }
+
+        @Override
+        public void remove() {
+          iterator.remove();
+          stamp = hub.changed();
+        }
+      };
+    }
+
+    @Override
+    public boolean remove(Object element) {
+      boolean removed = elements.remove(element);
+      if (removed) {
+        stamp = hub.changed();
+      }
+      return removed;
+    }
+
+    @Override
+    public int size() {
+      return elements.size();
+    }
+  }
+
+  private static final AtomicLong EPOCH = new AtomicLong();
+  private static final ThreadLocal<Hub> READER = new ThreadLocal<>();
+
+  /** Mark the model as changed and return the new epoch, usable as a mutation stamp. */
+  public static long advance() {
+    return EPOCH.incrementAndGet();
+  }
+
+  /** Return the current epoch. */
+  public static long epoch() {
+    return EPOCH.get();
+  }
+
+  /** Return the stamp of the source, registering the hub of the stamp being computed with it. */
+  public static long read(Hub source, long stamp) {
+    Hub reader = READER.get();
+    if (reader != null) {
+      source.add(reader);
+    }
+    return stamp;
+  }
+
+  /**
+   * Compute a stamp, registering the given hub with every tracked node and collection read.
+   *
+   * <p>The hub holds the stamp and is valid afterwards, until one of them changes.
+   */
+  public static long stamp(Hub hub, LongSupplier supplier) {
+    Hub reader = READER.get();
+    READER.set(hub);
+    try {
+      hub.epoch = epoch();
+      hub.untracked = false;
+      long stamp = supplier.getAsLong();
+      hub.stamp = stamp;
+      hub.valid = true;
+      return stamp;
+    } finally {
+      READER.set(reader);
+    }
+  }
+
+  /**
+   * Return the highest mutation stamp of the given object and everything below.
+   *
+   * <p>{@link Stamped} nodes report their own stamp. Tracked collections report the maximum of
+   * their own stamp and the stamps of their elements, or values. All other objects are considered
+   * immutable and have a stamp of zero.
+   */
+  public static long stamp(Object object) {
+    if (object instanceof Stamped) {
+      Hub reader = READER.get();
+      long stamp = ((Stamped) object).getMutationStamp();
+      if (reader == null) {
+        return stamp;
+      }
+      // a stamp depending on an untracked node is only valid for the current epoch
+      if (object instanceof Source) {
+        Hub hub = ((Source) object).getHub();
+        hub.add(reader);
+        reader.untracked |= hub.untracked;
+      } else {
+        reader.untracked = true;
+      }
+      return stamp;
+    }
+    if (object instanceof Tracked) {
+      Hub reader = READER.get();
+      if (reader != null) {
+        ((Tracked) object).getHub().add(reader);
+      }
+      long stamp = ((Tracked) object).getStamp();
+      Collection<?> elements =
+          object instanceof Map ? ((Map<?, ?>) object).values() : (Collection<?>) object;
+      for (Object element : elements) {
+        stamp = Math.max(stamp, stamp(element));
+      }
+      return stamp;
+    }
+    return 0;
+  }
+
+  /** Return the highest mutation stamp of all given objects. */
+  public static long stamp(Object first, Object second, Object... more) {
+    long stamp = Math.max(stamp(first), stamp(second));
+    for (Object object : more) {
+      stamp = Math.max(stamp, stamp(object));
+    }
+    return stamp;
+  }
+
+  /** Create new empty list advancing the epoch whenever it is changed. */
+  public static <E> List<E> trackedList() {
+    return trackedList(new Hub());
+  }
+
+  /** Create new empty list reporting its changes to the hub of the node owning it. */
+  public static <E> List<E> trackedList(Hub hub) {
+    return new TrackedList<>(hub);
+  }
+
+  /** Create new empty insertion-ordered map advancing the epoch whenever it is changed. */
+  public static <K, V> Map<K, V> trackedMap() {
+    return trackedMap(new Hub());
+  }
+
+  /** Create new empty insertion-ordered map reporting its changes to the owning node's hub. */
+  public static <K, V> Map<K, V> trackedMap(Hub hub) {
+    return new TrackedMap<>(hub);
+  }
+
+  /** Create set view advancing the epoch whenever it is changed, backed by the given set. */
+  public static <E> Set<E> trackedSet(Set<E> elements) {
+    return trackedSet(elements, new Hub());
+  }
+
+  /** Create set view backed by the given set, reporting its changes to the owning node's hub. */
+  public static <E> Set<E> trackedSet(Set<E> elements, Hub hub) {
+    return new TrackedSet<>(elements, hub);
+  }
+
+  private Mutation() {}
+}
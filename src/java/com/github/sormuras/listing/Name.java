@@ -14,10 +14,15 @@
 
 package com.github.sormuras.listing;
 
+import static java.util.Collections.emptySet;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
 
+import java.io.Serializable;
 import java.lang.annotation.ElementType;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Member;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -25,8 +30,11 @@ import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
@@ -51,6 +59,213 @@ import javax.lang.model.element.PackageElement;
  */
 public class Name implements Listable, Modifiable {
 
+  /**
+   * Interned identity of a name, a node of the segment trie rooted at the unnamed package.
+   *
+   * <p>Package nodes are indexed by their qualified name, type and member nodes hang off their
+   * enclosing node. Equal names share the same symbol and with it the derived strings, the plain
+   * enclosing name and the render cache.
+   *
+   * <p>The trie references its nodes weakly. A symbol is kept by the names using it and by its
+   * child symbols only, unused ones are collected and their entries purged on the next interning.
+   * Render caches hold the imported predicate only weakly, too, and keep no compilation unit alive.
+   */
+  private static final class Symbol implements Serializable {
+
+    /** Weak trie entry, removing itself from its map once its symbol is collected. */
+    private static final class Ref extends WeakReference<Symbol> {
+      final Map<String, Ref> map;
+      final String segment;
+
+      Ref(Map<String, Ref> map, String segment, Symbol symbol) {
+        super(symbol, QUEUE);
+        this.map = map;
+        this.segment = segment;
+      }
+    }
+
+    private static final long serialVersionUID = 0L;
+
+    private static final Map<String, Ref> PACKAGES = new ConcurrentHashMap<>();
+
+    private static final ReferenceQueue<Symbol> QUEUE = new ReferenceQueue<>();
+
+    private static final Symbol ROOT = new Symbol(null, "", true);
+
+    /** Return the symbol held by the map, or intern the one created by the function. */
+    static Symbol intern(Map<String, Ref> map, String key, Function<String, Symbol> function) {
+      Ref ref = map.get(key);
+      Symbol symbol = ref == null ? null : ref.get();
+      if (symbol != null) {
+        return symbol;
+      }
+      for (Reference<?> stale = QUEUE.poll(); stale != null; stale = QUEUE.poll()) {
+        ((Ref) stale).map.remove(((Ref) stale).segment, stale);
+      }
+      Symbol created = function.apply(key);
+      while (true) {
+        Ref present = map.putIfAbsent(key, new Ref(map, key, created));
+        if (present == null) {
+          return created;
+        }
+        symbol = present.get();
+        if (symbol != null) {
+          return symbol;
+        }
+        map.remove(key, present);
+      }
+    }
+
+    /** Return the interned symbol of the qualified package name. */
+    static Symbol ofPackage(String packageName) {
+      if (packageName.isEmpty()) {
+        return ROOT;
+      }
+      return intern(PACKAGES, packageName, Symbol::createPackage);
+    }
+
+    /** Return the interned symbol of the package name and the simple names. */
+    static Symbol of(String packageName, List<String> simpleNames) {
+      requireNonNull(packageName, "packageName");
+      requireNonNull(simpleNames, "simpleNames");
+      if (packageName.isEmpty() && simpleNames.isEmpty()) {
+        throw new AssertionError("packageName and names are empty");
+      }
+      Symbol symbol = ofPackage(packageName);
+      for (String simpleName : simpleNames) {
+        symbol = symbol.child(simpleName, false);
+      }
+      return symbol;
+    }
+
+    final String canonicalName;
+    final String lastSimpleName;
+    final String packageName;
+    final List<String> simpleNames;
+    private final transient boolean isPackage;
+    private transient volatile Name name;
+    private final transient Symbol parent;
+    private transient volatile Map<String, Ref> packages;
+    private transient RenderCache renderCache;
+    private transient volatile Map<String, Ref> types;
+
+    private Symbol(Symbol parent, String segment, boolean isPackage) {
+      this.parent = parent;
+      this.isPackage = isPackage;
+      if (parent == null || parent == ROOT) {
+        this.canonicalName = segment;
+      } else {
+        this.canonicalName = parent.canonicalName + '.' + segment;
+      }
+      if (isPackage) {
+        this.packageName = canonicalName;
+        this.simpleNames = Collections.emptyList();
+        this.lastSimpleName = "";
+      } else {
+        List<String> names = new ArrayList<>(parent.simpleNames.size() + 1);
+        names.addAll(parent.simpleNames);
+        names.add(segment);
+        this.packageName = parent.packageName;
+        this.simpleNames = unmodifiableList(names);
+        this.lastSimpleName = segment;
+      }
+    }
+
+    /** Return the interned child symbol, a sub-package or a member. */
+    Symbol child(String segment, boolean isPackage) {
+      Map<String, Ref> children = isPackage ? packages : types;
+      if (children == null) {
+        synchronized (this) {
+          children = isPackage ? packages : types;
+          if (children == null) {
+            children = new ConcurrentHashMap<>();
+            if (isPackage) {
+              packages = children;
+            } else {
+              types = children;
+            }
+          }
+        }
+      }
+      return intern(children, segment, s -> new Symbol(this, s, isPackage));
+    }
+
+    /** Return the shared plain name of the enclosing symbol, or {@code null} at the top. */
+    Name enclosing() {
+      if (parent == null || parent == ROOT) {
+        return null;
+      }
+      return parent.name();
+    }
+
+    /** Return the shared plain name of this symbol. */
+    Name name() {
+      Name name = this.name;
+      if (name == null) {
+        name = new Name(this).share(isPackage ? ElementType.PACKAGE : null, emptySet());
+        this.name = name;
+      }
+      return name;
+    }
+
+    RenderCache renderCache() {
+      RenderCache cache = renderCache;
+      if (cache == null) {
+        cache = new RenderCache();
+        renderCache = cache;
+      }
+      return cache;
+    }
+
+    /** Create the symbol of the package, interning its enclosing packages. */
+    private static Symbol createPackage(String packageName) {
+      int lastDot = packageName.lastIndexOf('.');
+      Symbol parent = lastDot == -1 ? ROOT : ofPackage(packageName.substring(0, lastDot));
+      return parent.child(packageName.substring(lastDot + 1), true);
+    }
+
+    /** Resolve to the interned instance. */
+    private Object readResolve() {
+      return of(packageName, simpleNames);
+    }
+  }
+
+  /** Shared names of classes. */
+  private static final ClassValue<Name> CLASS_NAMES =
+      new ClassValue<Name>() {
+        @Override
+        protected Name computeValue(Class<?> type) {
+          Name name = new Name(Symbol.of(Tool.packageOf(type), Tool.simpleNames(type)));
+          return name.share(ElementType.TYPE, Tool.modifiers(type.getModifiers()));
+        }
+      };
+
+  /** Shared names of enum constants per enum class, indexed by ordinal. */
+  private static final ClassValue<Name[]> ENUM_NAMES =
+      new ClassValue<Name[]>() {
+        @Override
+        protected Name[] computeValue(Class<?> type) {
+          Enum<?>[] constants = (Enum<?>[]) type.getEnumConstants();
+          Set<Modifier> modifiers = EnumSet.of(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL);
+          Name[] names = new Name[constants.length];
+          for (Enum<?> constant : constants) {
+            Name name = of(type).append(constant.name());
+            // field declaration (includes enum constants)
+            names[constant.ordinal()] = name.share(ElementType.FIELD, modifiers);
+          }
+          return names;
+        }
+      };
+
+  /** Shared names of members per declaring class. */
+  private static final ClassValue<Map<Member, Name>> MEMBER_NAMES =
+      new ClassValue<Map<Member, Name>>() {
+        @Override
+        protected Map<Member, Name> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
   /** Cast/convert any object to an instance of {@link Name}. */
   public static Name cast(Object any) {
     if (any == null) {
@@ -74,15 +289,10 @@ public class Name implements Listable, Modifiable {
     throw new IllegalArgumentException("can't cast/convert instance of " + any.getClass());
   }
 
-  /** Create new Name based on the class type. */
+  /** Return shared and unmodifiable Name based on the class type. */
   public static Name of(Class<?> type) {
     requireNonNull(type, "type");
-    String packageName = Tool.packageOf(type);
-    List<String> names = Tool.simpleNames(type);
-    Name name = new Name(packageName, names);
-    name.setTarget(ElementType.TYPE);
-    name.setModifiers(type.getModifiers());
-    return name;
+    return CLASS_NAMES.get(type);
   }
 
   /** Create new Name based on the class type and member name. */
@@ -101,26 +311,25 @@ public class Name implements Listable, Modifiable {
     throw new AssertionError("Member '" + declaredMemberName + "' of " + type + " lookup failed!");
   }
 
-  /** Create new Name based on the enum constant. */
+  /** Return shared and unmodifiable Name based on the enum constant. */
   public static Name of(Enum<?> constant) {
     requireNonNull(constant, "constant");
-    String packageName = Tool.packageOf(constant.getDeclaringClass());
-    List<String> names = Tool.simpleNames(constant.getDeclaringClass(), constant.name());
-    Name name = new Name(packageName, names);
-    name.setTarget(ElementType.FIELD); // Field declaration (includes enum constants)
-    name.setModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL);
-    return name;
+    return ENUM_NAMES.get(constant.getDeclaringClass())[constant.ordinal()];
   }
 
-  /** Create new Name based on the member instance. */
+  /** Return shared and unmodifiable Name based on the member instance. */
   public static Name of(Member member) {
     requireNonNull(member, "member");
-    Class<?> type = member.getDeclaringClass();
-    String packageName = Tool.packageOf(type);
-    List<String> names = Tool.simpleNames(type, member.getName());
-    Name name = new Name(packageName, names);
-    name.setTarget(Tool.elementOf(member));
-    name.setModifiers(member.getModifiers());
+    Map<Member, Name> names = MEMBER_NAMES.get(member.getDeclaringClass());
+    Name name = names.get(member);
+    if (name == null) {
+      name = of(member.getDeclaringClass()).append(member.getName());
+      name.share(Tool.elementOf(member), Tool.modifiers(member.getModifiers()));
+      Name previous = names.putIfAbsent(member, name);
+      if (previous != null) {
+        return previous;
+      }
+    }
     return name;
   }
 
@@ -134,7 +343,7 @@ public class Name implements Listable, Modifiable {
     Iterator<String> iterator = simples.iterator();
     String packageName = iterator.next();
     iterator.remove();
-    if (!simples.stream().allMatch(SourceVersion::isIdentifier)) {
+    if (!simples.stream().allMatch(Name::isIdentifier)) {
       throw new IllegalArgumentException("non-name in: " + simples);
     }
     Name name = new Name(packageName, simples);
@@ -159,42 +368,140 @@ public class Name implements Listable, Modifiable {
     }
   }
 
-  private final String canonicalName;
-  private final String lastSimpleName;
+  /**
+   * Parse dotted name into package name and simple names.
+   *
+   * <p>The longest leading part denoting a package known to the class path or the runtime image is
+   * the package name. If no part is known, the leading segments starting with a lower case letter
+   * are.
+   *
+   * @param dottedName For example: {@code "java.util.Map.Entry"}
+   */
+  public static Name parse(CharSequence dottedName) {
+    String text = requireNonNull(dottedName, "dottedName").toString();
+    List<String> segments = new ArrayList<>();
+    for (int start = 0, end; start <= text.length(); start = end + 1) {
+      end = text.indexOf('.', start);
+      if (end == -1) {
+        end = text.length();
+      }
+      String segment = text.substring(start, end);
+      if (!isIdentifier(segment)) {
+        throw new IllegalArgumentException("non-name `" + segment + "` in: " + text);
+      }
+      segments.add(segment);
+    }
+    int packageLength = 0;
+    int packageSize = 0;
+    for (int index = 0, end = -1; index < segments.size(); index++) {
+      end += segments.get(index).length() + 1;
+      if (PackageIndex.isPackage(text.substring(0, end))) {
+        packageLength = end;
+        packageSize = index + 1;
+      }
+    }
+    if (packageSize == 0) {
+      for (int end = -1; packageSize < segments.size(); packageSize++) {
+        String segment = segments.get(packageSize);
+        if (!Character.isLowerCase(segment.charAt(0))) {
+          break;
+        }
+        end += segment.length() + 1;
+        packageLength = end;
+      }
+    }
+    List<String> simpleNames = segments.subList(packageSize, segments.size());
+    Name name = new Name(text.substring(0, packageLength), simpleNames);
+    if (simpleNames.isEmpty()) {
+      name.setTarget(ElementType.PACKAGE);
+    } else if (simpleNames.size() == 1) {
+      name.setTarget(ElementType.TYPE);
+    }
+    return name;
+  }
+
+  /**
+   * Return the shared and unmodifiable plain name of the package name and the simple names.
+   *
+   * <p>Equal names share the same instance, no new name is created by subsequent calls.
+   */
+  public static Name shared(String packageName, List<String> simpleNames) {
+    return Symbol.of(packageName, simpleNames).name();
+  }
+
+  /** Return {@code true} if the string is an identifier, checking ASCII characters directly. */
+  private static boolean isIdentifier(String string) {
+    if (string.isEmpty()) {
+      return false;
+    }
+    for (int index = 0; index < string.length(); index++) {
+      char character = string.charAt(index);
+      if (character >= 0x80) {
+        return SourceVersion.isIdentifier(string);
+      }
+      if (character >= 'a' && character <= 'z'
+          || character >= 'A' && character <= 'Z'
+          || character == '_'
+          || character == '$') {
+        continue;
+      }
+      if (index == 0 || character < '0' || character > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private Set<Modifier> modifiers;
-  private final String packageName;
-  private final List<String> simpleNames;
+  private boolean shared;
+  private final Symbol symbol;
   private ElementType target;
 
   /** Initialize this {@link Name} instance. */
   public Name(String packageName, List<String> simpleNames) {
-    this.packageName = requireNonNull(packageName, "packageName");
-    this.simpleNames = unmodifiableList(requireNonNull(simpleNames, "simpleNames"));
-    this.lastSimpleName = simpleNames.isEmpty() ? "" : simpleNames.get(simpleNames.size() - 1);
+    this(Symbol.of(packageName, simpleNames));
+  }
+
+  private Name(Symbol symbol) {
+    this.symbol = symbol;
     this.modifiers = Collections.emptySet();
-    this.canonicalName = Tool.canonical(packageName, simpleNames);
     this.target = null;
   }
 
+  /** Create new Name with the simple name appended to the simple names of this name. */
+  private Name append(String simpleName) {
+    return new Name(symbol.child(simpleName, false));
+  }
+
   @Override
   public Listing apply(Listing listing) {
     return listing.add(this);
   }
 
+  /** Compare canonical names of names directly, other listables by their comparison keys. */
+  @Override
+  public int compareTo(Listable other) {
+    if (other instanceof Name) {
+      Symbol that = ((Name) other).symbol;
+      return symbol == that ? 0 : symbol.canonicalName.compareTo(that.canonicalName);
+    }
+    return Listable.super.compareTo(other);
+  }
+
   @Override
   public String comparisonKey() {
-    return canonicalName;
+    return symbol.canonicalName;
+  }
+
+  @Override
+  public int estimateLength() {
+    return symbol.canonicalName.length();
   }
 
+  /** Return {@code true} if the other object is a name sharing the interned identity. */
   @Override
   public boolean equals(Object other) {
-    if (this == other) {
-      return true;
-    }
-    if (other == null || getClass() != other.getClass()) {
-      return false;
-    }
-    return hashCode() == other.hashCode();
+    return this == other || other instanceof Name && ((Name) other).symbol == symbol;
   }
 
   /**
@@ -203,35 +510,21 @@ public class Name implements Listable, Modifiable {
    * @return For example: {@code "java.lang.Thread.State"}
    */
   public String getCanonicalName() {
-    return canonicalName;
+    return symbol.canonicalName;
   }
 
-  /** Crop last name. */
+  /** Crop last name, returns the shared and unmodifiable enclosing name. */
   public Optional<Name> getEnclosing() {
-    if (getSimpleNames().size() > 1) {
-      List<String> names = getSimpleNames().subList(0, getSimpleNames().size() - 1);
-      return Optional.of(new Name(getPackageName(), names));
-    }
-    if (getSimpleNames().size() == 1) {
-      if (getPackageName().isEmpty()) {
-        return Optional.empty();
-      }
-      return Optional.of(new Name(getPackageName(), Collections.emptyList()));
-    }
-    int endIndex = getPackageName().lastIndexOf('.');
-    if (endIndex > 0) {
-      return Optional.of(of(getPackageName().substring(0, endIndex)));
-    }
-    return Optional.empty();
+    return Optional.ofNullable(symbol.enclosing());
   }
 
   public String getLastSimpleName() {
-    return lastSimpleName;
+    return symbol.lastSimpleName;
   }
 
   @Override
   public Set<Modifier> getModifiers() {
-    if (modifiers == Collections.EMPTY_SET) {
+    if (modifiers == Collections.EMPTY_SET && !shared) {
       modifiers = EnumSet.noneOf(Modifier.class);
     }
     return modifiers;
@@ -243,7 +536,7 @@ public class Name implements Listable, Modifiable {
    * @return For example: {@code "java.lang"}
    */
   public String getPackageName() {
-    return packageName;
+    return symbol.packageName;
   }
 
   /**
@@ -252,7 +545,12 @@ public class Name implements Listable, Modifiable {
    * @return For example: {@code ["Thread", "State"]}
    */
   public List<String> getSimpleNames() {
-    return simpleNames;
+    return symbol.simpleNames;
+  }
+
+  /** Return render cache shared by all equal names, created on demand. */
+  RenderCache getRenderCache() {
+    return symbol.renderCache();
   }
 
   public Optional<ElementType> getTarget() {
@@ -261,15 +559,20 @@ public class Name implements Listable, Modifiable {
 
   @Override
   public int hashCode() {
-    return canonicalName.hashCode();
+    return symbol.canonicalName.hashCode();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return symbol.canonicalName.isEmpty();
   }
 
   public boolean isJavaLangObject() {
-    return "java.lang.Object".equals(canonicalName);
+    return "java.lang.Object".equals(symbol.canonicalName);
   }
 
   public boolean isJavaLangPackage() {
-    return "java.lang".equals(packageName);
+    return "java.lang".equals(symbol.packageName);
   }
 
   @Override
@@ -277,10 +580,29 @@ public class Name implements Listable, Modifiable {
     return !modifiers.isEmpty();
   }
 
+  /** Return {@code true} if this instance is shared and therefore unmodifiable. */
+  public boolean isShared() {
+    return shared;
+  }
+
+  /** Set target of this name, throws if this instance is shared. */
   public void setTarget(ElementType target) {
+    if (shared) {
+      throw new UnsupportedOperationException("shared name is unmodifiable: " + this);
+    }
     this.target = target;
   }
 
+  /** Set target and modifiers and mark this instance as shared and unmodifiable. */
+  private Name share(ElementType target, Set<Modifier> modifiers) {
+    this.target = target;
+    if (!modifiers.isEmpty()) {
+      this.modifiers = Collections.unmodifiableSet(EnumSet.copyOf(modifiers));
+    }
+    this.shared = true;
+    return this;
+  }
+
   @Override
   public String toString() {
     return "Name{"
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2016 Christian Stein
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.github.sormuras.listing;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Names of all packages containing at least one class file, scanned once on first use.
+ *
+ * <p>Packages of the runtime image are read from the {@code jrt:/} file system, if present, else
+ * from the boot class path. Packages of the application are read from the jar files and directories
+ * of the class path. No class is loaded.
+ */
+final class PackageIndex {
+
+  /** Lazy holder of the index. */
+  private static final class Holder {
+    static final Set<String> PACKAGES = Collections.unmodifiableSet(scan());
+  }
+
+  /** Return {@code true} if the qualified name denotes a known package. */
+  static boolean isPackage(String name) {
+    return Holder.PACKAGES.contains(name);
+  }
+
+  static Set<String> packages() {
+    return Holder.PACKAGES;
+  }
+
+  private static void add(Set<String> packages, String path, char separator) {
+    int end = path.lastIndexOf(separator);
+    if (end > 0 && path.endsWith(".class")) {
+      packages.add(path.substring(0, end).replace(separator, '.'));
+    }
+  }
+
+  private static Set<String> scan() {
+    Set<String> packages = new HashSet<>(4096);
+    if (!scanRuntimeImage(packages)) {
+      scanPath(packages, System.getProperty("sun.boot.class.path"));
+    }
+    scanPath(packages, System.getProperty("java.class.path"));
+    return packages;
+  }
+
+  private static void scanDirectory(Set<String> packages, Path root) throws IOException {
+    try (Stream<Path> paths = Files.walk(root)) {
+      paths.forEach(path -> add(packages, root.relativize(path).toString(), File.separatorChar));
+    }
+  }
+
+  private static void scanPath(Set<String> packages, String classPath) {
+    if (classPath == null) {
+      return;
+    }
+    for (String element : classPath.split(File.pathSeparator)) {
+      Path path = Paths.get(element);
+      try {
+        if (Files.isDirectory(path)) {
+          scanDirectory(packages, path);
+        } else if (Files.isRegularFile(path)) {
+          scanZip(packages, path.toFile());
+        }
+      } catch (IOException | RuntimeException exception) {
+        // unreadable element, skip it
+      }
+    }
+  }
+
+  /** Read the package directory of the runtime image, return {@code false} if there is none. */
+  private static boolean scanRuntimeImage(Set<String> packages) {
+    try {
+      FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(jrt.getPath("/packages"))) {
+        stream.forEach(path -> packages.add(path.getFileName().toString()));
+      }
+      return true;
+    } catch (IOException | RuntimeException exception) {
+      return false;
+    }
+  }
+
+  private static void scanZip(Set<String> packages, File file) throws IOException {
+    try (ZipFile zip = new ZipFile(file)) {
+      Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        add(packages, entries.nextElement().getName(), '/');
+      }
+    }
+  }
+
+  private PackageIndex() {
+    throw new AssertionError();
+  }
+}
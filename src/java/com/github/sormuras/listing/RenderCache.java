@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2016 Christian Stein
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.github.sormuras.listing;
+
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Single-entry cache of the text an inline node rendered last.
+ *
+ * <p>The entry is keyed by the {@link Listing} settings the text depends on, namely the imported
+ * predicate and the omit-java-lang-package flag, and by the {@link Stamped#getMutationStamp()
+ * mutation stamp} of the node when it was rendered. Only a change of the node itself or one of its
+ * children invalidates the entry, changes elsewhere in the model leave it untouched. Text spanning
+ * multiple lines is never cached.
+ *
+ * <p>The imported predicate is referenced weakly. Often it is backed by a compilation unit, which
+ * must not be kept alive by an entry of a long-lived node, like an interned name.
+ *
+ * @see Listing.Builder#setRenderCacheEnabled(boolean)
+ */
+public final class RenderCache implements Serializable {
+
+  private static final class Entry {
+    final WeakReference<Predicate<Name>> imported;
+    final boolean omitJavaLangPackage;
+    final long stamp;
+    final String text;
+
+    Entry(long stamp, Listing listing, String text) {
+      this.imported = new WeakReference<>(listing.getImported());
+      this.omitJavaLangPackage = listing.isOmitJavaLangPackage();
+      this.stamp = stamp;
+      this.text = text;
+    }
+  }
+
+  private transient volatile Entry entry;
+
+  /**
+   * Add cached text to the listing, or apply the renderer to a pooled listing and cache its text.
+   *
+   * <p>The stamp is the mutation stamp of the rendered node, read before rendering. If render
+   * caching is not enabled, the renderer is applied to the listing directly. So it is if the text
+   * exceeds the maximum column of the listing, letting the renderer wrap it.
+   */
+  public Listing apply(Listing listing, long stamp, UnaryOperator<Listing> renderer) {
+    if (!listing.isRenderCacheEnabled()) {
+      return renderer.apply(listing);
+    }
+    String text = get(listing, stamp);
+    if (text == null) {
+      Listing inline = Listing.acquire(listing.getConfiguration());
+      try {
+        renderer.apply(inline);
+        if (inline.getCurrentLineNumber() > 1) {
+          return renderer.apply(listing);
+        }
+        text = inline.toString();
+      } finally {
+        inline.release();
+      }
+      put(stamp, listing, text);
+    }
+    int maxColumn = listing.getMaxColumn();
+    if (maxColumn > 0 && listing.getColumn() + text.length() > maxColumn) {
+      return renderer.apply(listing);
+    }
+    return listing.add(text);
+  }
+
+  /** Return text cached at the given stamp for the settings of the listing, or {@code null}. */
+  public String get(Listing listing, long stamp) {
+    Entry entry = this.entry;
+    if (entry == null
+        || entry.stamp != stamp
+        || entry.imported.get() != listing.getImported()
+        || entry.omitJavaLangPackage != listing.isOmitJavaLangPackage()) {
+      return null;
+    }
+    return entry.text;
+  }
+
+  /** Cache text rendered at the given stamp using the settings of the listing. */
+  public void put(long stamp, Listing listing, String text) {
+    entry = new Entry(stamp, listing, text);
+  }
+}
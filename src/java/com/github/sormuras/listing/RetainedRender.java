@@ -0,0 +1,424 @@
+/*
+ * Copyright (C) 2016 Christian Stein
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.github.sormuras.listing;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Render a root listable repeatedly, reusing the text of unchanged {@link Retainable} nodes.
+ *
+ * <p>Every retainable node rendered at the start of a line is retained together with its
+ * {@link Stamped#getMutationStamp() mutation stamp} and the listing state it started with. On the
+ * next render, a node with an unchanged stamp and start state is not rendered again, its retained
+ * lines are copied instead. Only the changed nodes, and the nodes enclosing them, are rendered.
+ * Retained text is also dropped if the imported predicate is replaced or changes its stamp.
+ *
+ * <p>Retained lines are kept as a line range of the previous render's text. A node whose lines are
+ * partly trimmed away by a following node is not retained.
+ *
+ * <pre>
+ * RetainedRender render = new RetainedRender(unit);
+ * String text = render.render();
+ * method.addStatement("return 42");
+ * text = render.render();
+ * List&lt;LineRange&gt; changed = render.getChangedLines();
+ * </pre>
+ *
+ * <p>Non-stamped listables, like lambdas and templates, are considered immutable. Instances are not
+ * thread-safe and render sequentially, a configured render pool is ignored.
+ */
+public class RetainedRender {
+
+  /** Range of line numbers, starting at 1, with an inclusive start and an exclusive end. */
+  public static final class LineRange {
+
+    private final int from;
+    private final int to;
+
+    public LineRange(int from, int to) {
+      if (from < 1 || to < from) {
+        throw new IllegalArgumentException("invalid range: from=" + from + ", to=" + to);
+      }
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof LineRange)) {
+        return false;
+      }
+      LineRange range = (LineRange) other;
+      return from == range.from && to == range.to;
+    }
+
+    /** Return first line number of this range. */
+    public int getFrom() {
+      return from;
+    }
+
+    /** Return line number following the last line of this range. */
+    public int getTo() {
+      return to;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * from + to;
+    }
+
+    /** Return {@code true} if lines were only removed in front of line {@link #getFrom()}. */
+    public boolean isEmpty() {
+      return from == to;
+    }
+
+    @Override
+    public String toString() {
+      return "[" + from + ", " + to + ")";
+    }
+  }
+
+  /** Retained line range of a node and the state it depends on. */
+  private static final class Entry {
+
+    private final List<Retainable> children;
+    private final State end;
+    private final Predicate<Name> imported;
+    private final long importedStamp;
+    private final int line;
+    private final int lines;
+    private final long stamp;
+    private final State state;
+    private final String tail;
+    private final boolean trimming;
+
+    Entry(
+        long stamp,
+        Predicate<Name> imported,
+        long importedStamp,
+        State state,
+        int line,
+        int lines,
+        boolean trimming,
+        String tail,
+        State end,
+        List<Retainable> children) {
+      this.children = children;
+      this.end = end;
+      this.imported = imported;
+      this.importedStamp = importedStamp;
+      this.line = line;
+      this.lines = lines;
+      this.stamp = stamp;
+      this.state = state;
+      this.tail = tail;
+      this.trimming = trimming;
+    }
+
+    boolean matches(long stamp, Predicate<Name> imported, long importedStamp, State state) {
+      return this.stamp == stamp
+          && this.imported == imported
+          && this.importedStamp == importedStamp
+          && this.state.depth == state.depth
+          && this.state.lastLineEmpty == state.lastLineEmpty
+          && Arrays.equals(this.state.names, state.names)
+          // a node trimming the lines in front of it needs the same lines there again
+          && (!trimming
+              || this.state.trimmableLines == state.trimmableLines
+                  && this.state.trimmedLineEmpty == state.trimmedLineEmpty);
+    }
+
+    Entry moveTo(int line) {
+      if (line == this.line) {
+        return this;
+      }
+      return new Entry(
+          stamp, imported, importedStamp, state, line, lines, trimming, tail, end, children);
+    }
+  }
+
+  /** Listing state a node starts with. */
+  private static final class State {
+
+    private final int depth;
+    private final boolean lastLineEmpty;
+    private final int line;
+    private final String[] names;
+    private final int trimmableLines;
+    private final boolean trimmedLineEmpty;
+
+    State(Listing listing) {
+      this.depth = listing.getIndentationDepth();
+      this.lastLineEmpty = listing.isLastLineEmpty();
+      this.line = listing.getCurrentLineNumber();
+      this.names = listing.getNameStack().toArray(new String[listing.getNameStack().size()]);
+      this.trimmableLines = listing.countTrimmableLines();
+      this.trimmedLineEmpty = listing.isTrimmedLineEmpty();
+    }
+  }
+
+  /** Reused nodes as triples of previous start line, current start line and line count. */
+  private final List<int[]> anchors = new ArrayList<>();
+  private List<LineRange> changedLines = Collections.emptyList();
+  private final UnaryOperator<Listing.Builder> customOperator;
+  private Map<Retainable, Entry> entries = new IdentityHashMap<>();
+  private String[] lines = null;
+  private Map<Retainable, Entry> previous = new IdentityHashMap<>();
+  private int renderedCount = 0;
+  private int reusedCount = 0;
+  private final Listable root;
+  private final Deque<List<Retainable>> scopes = new ArrayDeque<>();
+
+  public RetainedRender(Listable root) {
+    this(root, UnaryOperator.identity());
+  }
+
+  /**
+   * Initialize this instance using the root's and the given builder customizations.
+   *
+   * <p>Both are applied anew on every render, as the root's settings may change with the model,
+   * like the imports resolved by a compilation unit.
+   */
+  public RetainedRender(Listable root, UnaryOperator<Listing.Builder> customOperator) {
+    this.root = requireNonNull(root, "root");
+    this.customOperator = requireNonNull(customOperator, "customOperator");
+  }
+
+  /** Drop all retained text, the next render renders every node. */
+  public void clear() {
+    entries = new IdentityHashMap<>();
+    lines = null;
+  }
+
+  /**
+   * Return the line ranges of the latest render that differ from the render before.
+   *
+   * <p>Lines of reused nodes are never reported. An {@link LineRange#isEmpty() empty} range marks
+   * lines that were removed. The first render reports all lines as changed.
+   */
+  public List<LineRange> getChangedLines() {
+    return changedLines;
+  }
+
+  /** Return number of retainable nodes actually rendered by the latest render. */
+  public int getRenderedCount() {
+    return renderedCount;
+  }
+
+  /** Return number of retainable nodes whose retained text was reused by the latest render. */
+  public int getReusedCount() {
+    return reusedCount;
+  }
+
+  public Listable getRoot() {
+    return root;
+  }
+
+  /** Render the root, reusing the retained text of all unchanged nodes. */
+  public String render() {
+    previous = entries;
+    entries = new IdentityHashMap<>();
+    anchors.clear();
+    renderedCount = 0;
+    reusedCount = 0;
+    scopes.push(new ArrayList<>());
+    Listing.Builder builder = root.listOperator().apply(Listing.builder());
+    Listing listing = new Listing(customOperator.apply(builder).configuration(), null);
+    listing.setRetainedRender(this);
+    listing.ensureCapacity(root.estimateLength(), root.estimateLines());
+    boolean complete = false;
+    try {
+      listing.add(root);
+      cut(scopes.element(), listing.resetRemovalMark());
+      complete = true;
+    } finally {
+      scopes.clear();
+      previous = Collections.emptyMap();
+      if (!complete) {
+        // retained line ranges refer to the text of this render
+        clear();
+      }
+    }
+    List<String> collected = listing.getLines();
+    int size = collected.size();
+    boolean partial = listing.getCurrentLine().length() > 0;
+    String[] current = collected.toArray(new String[size + (partial ? 1 : 0)]);
+    if (partial) {
+      current[size] = listing.getCurrentLine().toString();
+    }
+    changedLines = lines == null ? difference(new String[0], current) : difference(lines, current);
+    lines = current;
+    return listing.toString();
+  }
+
+  /** Render the node into a branch and retain it, or reuse its retained text. */
+  Listing add(Listing listing, Retainable node) {
+    long stamp = node.getMutationStamp();
+    Predicate<Name> imported = listing.getImported();
+    long importedStamp = Mutation.stamp(imported);
+    cut(scopes.element(), listing.resetRemovalMark());
+    State state = new State(listing);
+    Entry entry = previous.get(node);
+    if (entry != null && entry.matches(stamp, imported, importedStamp, state)) {
+      if (entry.trimming) {
+        listing.trim();
+      }
+      int line = listing.getCurrentLineNumber();
+      listing.splice(lines, entry.line - 1, entry.line - 1 + entry.lines);
+      listing.add(entry.tail).indent(entry.end.depth - listing.getIndentationDepth());
+      listing.getNameStack().clear();
+      Collections.addAll(listing.getNameStack(), entry.end.names);
+      anchors.add(new int[] {entry.line, line, entry.lines});
+      keep(node, entry, line - entry.line);
+      reusedCount++;
+      return register(listing, node);
+    }
+    List<Retainable> children = new ArrayList<>();
+    Listing branch = listing.branch();
+    scopes.push(children);
+    try {
+      node.apply(branch);
+      cut(children, branch.resetRemovalMark());
+    } finally {
+      scopes.pop();
+    }
+    renderedCount++;
+    int line = state.line - branch.getTrimmedLines();
+    boolean trimming = branch.getTrimmedLines() > 0 || branch.isTrimmedBeyondStart();
+    listing.splice(branch);
+    State end = new State(branch);
+    int lines = branch.getLines().size();
+    String tail = branch.getCurrentLine().toString();
+    entries.put(
+        node,
+        new Entry(
+            stamp, imported, importedStamp, state, line, lines, trimming, tail, end, children));
+    return register(listing, node);
+  }
+
+  /** Drop the latest retained nodes of the scope whose lines were partly removed. */
+  private void cut(List<Retainable> scope, int mark) {
+    if (mark == Integer.MAX_VALUE) {
+      return;
+    }
+    for (int index = scope.size() - 1; index >= 0; index--) {
+      Entry entry = entries.get(scope.get(index));
+      if (entry != null && entry.line - 1 + entry.lines <= mark) {
+        return;
+      }
+      if (entry != null) {
+        drop(scope.get(index), entry);
+        anchors.removeIf(anchor -> anchor[1] == entry.line && anchor[2] == entry.lines);
+      }
+      scope.remove(index);
+    }
+  }
+
+  /** Compute changed line ranges, anchored at the lines of reused nodes. */
+  private List<LineRange> difference(String[] before, String[] after) {
+    List<LineRange> ranges = new ArrayList<>();
+    int beforeIndex = 0;
+    int afterIndex = 0;
+    for (int[] anchor : anchors) {
+      int beforeStart = anchor[0] - 1;
+      int afterStart = anchor[1] - 1;
+      // skip nodes moved in front of an earlier anchor, their lines are compared as text
+      if (beforeStart < beforeIndex) {
+        continue;
+      }
+      difference(ranges, before, beforeIndex, beforeStart, after, afterIndex, afterStart);
+      beforeIndex = beforeStart + anchor[2];
+      afterIndex = afterStart + anchor[2];
+    }
+    difference(ranges, before, beforeIndex, before.length, after, afterIndex, after.length);
+    return Collections.unmodifiableList(ranges);
+  }
+
+  /** Compare the segments, trimming equal leading and trailing lines, and add the remainder. */
+  private void difference(
+      List<LineRange> ranges,
+      String[] before,
+      int beforeFrom,
+      int beforeTo,
+      String[] after,
+      int afterFrom,
+      int afterTo) {
+    while (beforeFrom < beforeTo
+        && afterFrom < afterTo
+        && before[beforeFrom].equals(after[afterFrom])) {
+      beforeFrom++;
+      afterFrom++;
+    }
+    while (beforeFrom < beforeTo
+        && afterFrom < afterTo
+        && before[beforeTo - 1].equals(after[afterTo - 1])) {
+      beforeTo--;
+      afterTo--;
+    }
+    if (beforeFrom == beforeTo && afterFrom == afterTo) {
+      return;
+    }
+    LineRange range = new LineRange(afterFrom + 1, afterTo + 1);
+    int last = ranges.size() - 1;
+    if (last >= 0 && ranges.get(last).getTo() >= range.getFrom()) {
+      range = new LineRange(ranges.get(last).getFrom(), range.getTo());
+      ranges.remove(last);
+    }
+    ranges.add(range);
+  }
+
+  /** Drop the entry of a node and the entries of all nodes below. */
+  private void drop(Retainable node, Entry entry) {
+    entries.remove(node);
+    for (Retainable child : entry.children) {
+      Entry childEntry = entries.get(child);
+      if (childEntry != null) {
+        drop(child, childEntry);
+      }
+    }
+  }
+
+  /** Carry the entry of a reused node and the entries of all nodes below over to this render. */
+  private void keep(Retainable node, Entry entry, int offset) {
+    entries.put(node, entry.moveTo(entry.line + offset));
+    for (Retainable child : entry.children) {
+      Entry childEntry = previous.get(child);
+      if (childEntry != null) {
+        keep(child, childEntry, offset);
+      }
+    }
+  }
+
+  /** Add the node to the current scope, after its trimming dropped the nodes in front of it. */
+  private Listing register(Listing listing, Retainable node) {
+    cut(scopes.element(), listing.resetRemovalMark());
+    scopes.element().add(node);
+    return listing;
+  }
+}
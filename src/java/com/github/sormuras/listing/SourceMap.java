@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2016 Christian Stein
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.github.sormuras.listing;
+
+import java.util.Arrays;
+import java.util.Optional;
+import javax.tools.Diagnostic;
+
+/**
+ * Index of the line ranges each model node produced while being rendered.
+ *
+ * <p>Pass an instance to {@link Listing.Builder#setSourceMap(SourceMap)} and every {@link Stamped}
+ * node added to the listing is recorded with its first line and the line following its last one.
+ * Ranges are stored in primitive arrays, ordered by their first line, and nested ranges point to
+ * their enclosing range. Finding the innermost node of a line, for example one reported by a
+ * compiler {@link Diagnostic}, is a binary search followed by a short walk up the enclosing ranges.
+ */
+public class SourceMap {
+
+  private int[] froms = new int[64];
+  private Listable[] nodes = new Listable[64];
+  private int open = -1;
+  private int[] parents = new int[64];
+  private int size = 0;
+  private int[] tos = new int[64];
+
+  /** Discard all recorded ranges. */
+  public void clear() {
+    Arrays.fill(nodes, 0, size, null);
+    open = -1;
+    size = 0;
+  }
+
+  /** Return the innermost node that rendered the line reported by the diagnostic. */
+  public Optional<Listable> find(Diagnostic<?> diagnostic) {
+    return find(diagnostic, Listable.class);
+  }
+
+  /** Return the innermost node of the given type that rendered the reported line. */
+  public <T> Optional<T> find(Diagnostic<?> diagnostic, Class<T> type) {
+    long line = diagnostic.getLineNumber();
+    if (line == Diagnostic.NOPOS) {
+      return Optional.empty();
+    }
+    return find(line, type);
+  }
+
+  /** Return the innermost node that rendered the given line, starting at 1. */
+  public Optional<Listable> find(long line) {
+    return find(line, Listable.class);
+  }
+
+  /** Return the innermost node of the given type that rendered the given line, starting at 1. */
+  public <T> Optional<T> find(long line, Class<T> type) {
+    if (line < 1 || line > Integer.MAX_VALUE) {
+      return Optional.empty();
+    }
+    int index = Arrays.binarySearch(froms, 0, size, (int) line);
+    if (index < 0) {
+      // insertion point minus one is the last range starting in front of the line
+      index = -index - 2;
+    } else {
+      // ranges may start at the same line, prefer the innermost one
+      while (index + 1 < size && froms[index + 1] == line) {
+        index++;
+      }
+    }
+    while (index >= 0) {
+      if (tos[index] > line && type.isInstance(nodes[index])) {
+        return Optional.of(type.cast(nodes[index]));
+      }
+      index = parents[index];
+    }
+    return Optional.empty();
+  }
+
+  /** Return number of recorded ranges. */
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    return "SourceMap{size=" + size + "}";
+  }
+
+  /** Start recording the range of the node at the given line and return its index. */
+  int enter(Listable node, int line) {
+    if (size == froms.length) {
+      int capacity = size * 2;
+      froms = Arrays.copyOf(froms, capacity);
+      nodes = Arrays.copyOf(nodes, capacity);
+      parents = Arrays.copyOf(parents, capacity);
+      tos = Arrays.copyOf(tos, capacity);
+    }
+    // keep ranges sorted even if an earlier node trimmed lines
+    froms[size] = size == 0 ? line : Math.max(line, froms[size - 1]);
+    nodes[size] = node;
+    parents[size] = open;
+    tos[size] = Integer.MAX_VALUE;
+    open = size;
+    return size++;
+  }
+
+  /** Finish recording the range at the index, dropping it if the node rendered nothing. */
+  void exit(int index, int to) {
+    open = parents[index];
+    if (to <= froms[index] && index == size - 1) {
+      nodes[--size] = null;
+      return;
+    }
+    tos[index] = Math.max(to, froms[index]);
+  }
+}
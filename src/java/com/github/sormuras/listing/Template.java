@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2016 Christian Stein
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.github.sormuras.listing;
+
+import static java.lang.invoke.MethodType.methodType;
+import static java.util.Objects.requireNonNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+
+/**
+ * Source string parsed once into literal and placeholder segments.
+ *
+ * <p>Supported placeholders are:
+ *
+ * <ul>
+ *   <li>{@code {S}} escaped string literal of the argument
+ *   <li>{@code {N}} argument cast to {@link Name}
+ *   <li>{@code {L}} argument cast to {@link Listable}
+ *   <li>{@code {a.b.c}} result of the method chain {@code argument.a().b().c()}
+ * </ul>
+ *
+ * @see Listing#add(String, Object...)
+ */
+public class Template {
+
+  /** Maximum number of templates held in the cache. */
+  public static final int CACHE_SIZE = 1024;
+
+  private static final Map<String, Template> CACHE = new ConcurrentHashMap<>();
+
+  /** Method handles per receiver class, keyed by method name. */
+  private static final ClassValue<Map<String, MethodHandle>> HANDLES =
+      new ClassValue<Map<String, MethodHandle>>() {
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  private static final MethodType HANDLE_TYPE = methodType(Object.class, Object.class);
+
+  /**
+   * Return a parsed template for the source string, cached in a bounded concurrent map.
+   *
+   * <p>Lookups don't lock. If the cache is full, an arbitrary entry is evicted.
+   */
+  public static Template of(String source) {
+    requireNonNull(source, "source");
+    Template template = CACHE.get(source);
+    if (template == null) {
+      template = new Template(source);
+      if (CACHE.size() >= CACHE_SIZE) {
+        Iterator<String> iterator = CACHE.keySet().iterator();
+        if (iterator.hasNext()) {
+          iterator.next();
+          iterator.remove();
+        }
+      }
+      Template present = CACHE.putIfAbsent(source, template);
+      if (present != null) {
+        return present;
+      }
+    }
+    return template;
+  }
+
+  /** Look up public no-arg method of the given class and return it as a method handle. */
+  private static MethodHandle handle(Class<?> type, String name)
+      throws ReflectiveOperationException {
+    Map<String, MethodHandle> handles = HANDLES.get(type);
+    MethodHandle handle = handles.get(name);
+    if (handle == null) {
+      handle = MethodHandles.lookup().unreflect(type.getMethod(name)).asType(HANDLE_TYPE);
+      handles.put(name, handle);
+    }
+    return handle;
+  }
+
+  private final String[][] chains;
+  private final String[] literals;
+  private final String[] placeholders;
+  private final String source;
+
+  /** Parse source into literal and placeholder segments. */
+  public Template(String source) {
+    this.source = requireNonNull(source, "source");
+    List<String> literals = new ArrayList<>();
+    List<String> placeholders = new ArrayList<>();
+    Matcher matcher = Listing.PLACEHOLDER_PATTERN.matcher(source);
+    int sourceIndex = 0;
+    while (matcher.find()) {
+      literals.add(source.substring(sourceIndex, matcher.start()));
+      placeholders.add(matcher.group(0));
+      sourceIndex = matcher.end();
+    }
+    literals.add(source.substring(sourceIndex));
+    this.literals = literals.toArray(new String[literals.size()]);
+    this.placeholders = placeholders.toArray(new String[placeholders.size()]);
+    this.chains = new String[this.placeholders.length][];
+    for (int i = 0; i < chains.length; i++) {
+      String placeholder = this.placeholders[i];
+      if (placeholder.equals("{S}") || placeholder.equals("{N}") || placeholder.equals("{L}")) {
+        continue;
+      }
+      List<String> names = new ArrayList<>();
+      for (String name : Listing.METHODCHAIN_PATTERN.split(placeholder)) {
+        if (!name.isEmpty()) {
+          names.add(name);
+        }
+      }
+      chains[i] = names.toArray(new String[names.size()]);
+    }
+  }
+
+  /** Replace placeholders with the given arguments and add all segments to the listing. */
+  public Listing apply(Listing listing, Object... args) {
+    for (int i = 0; i < placeholders.length; i++) {
+      if (!literals[i].isEmpty()) {
+        listing.add(literals[i]);
+      }
+      Object argument = args[i];
+      if (chains[i] == null) {
+        switch (placeholders[i].charAt(1)) {
+          case 'S':
+            listing.add(Tool.escape(argument.toString()));
+            break;
+          case 'N':
+            listing.add(Name.cast(argument));
+            break;
+          default:
+            listing.add((Listable) argument);
+        }
+        continue;
+      }
+      Object result = invoke(i, argument);
+      if (result instanceof Name) {
+        listing.add((Name) result);
+        continue;
+      }
+      if (result instanceof Listable) {
+        listing.add((Listable) result);
+        continue;
+      }
+      listing.add(String.valueOf(result));
+    }
+    return listing.add(literals[placeholders.length]);
+  }
+
+  public int getPlaceholderCount() {
+    return placeholders.length;
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  @Override
+  public String toString() {
+    return "Template{" + source + "}";
+  }
+
+  /** Call method chain of the placeholder at the given index. */
+  private Object invoke(int index, Object argument) {
+    try {
+      Object result = argument;
+      for (String name : chains[index]) {
+        result = (Object) handle(result.getClass(), name).invokeExact(result);
+      }
+      if (result instanceof Optional) {
+        result = ((Optional<?>) result).get();
+      }
+      return result;
+    } catch (Error error) {
+      throw error;
+    } catch (Throwable throwable) {
+      String placeholder = placeholders[index];
+      throw new IllegalArgumentException(
+          "error parsing: '" + placeholder + "' source='" + source + "'", throwable);
+    }
+  }
+}
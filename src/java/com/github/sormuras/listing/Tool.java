@@ -23,8 +23,9 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import javax.lang.model.element.Modifier;
@@ -208,11 +209,12 @@ public interface Tool {
   /** Return all simple names of the given class as a list of Strings. */
   static List<String> simpleNames(Class<?> type, String... additionalNames) {
     requireNonNull(type, "type");
-    List<String> names = new LinkedList<>();
+    List<String> names = new ArrayList<>(4 + additionalNames.length);
     while (type != null) {
-      names.add(0, type.getSimpleName());
+      names.add(type.getSimpleName());
       type = type.getEnclosingClass();
     }
+    Collections.reverse(names);
     addAll(names, additionalNames);
     return names;
   }
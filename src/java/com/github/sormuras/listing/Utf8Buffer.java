@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2016 Christian Stein
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.github.sormuras.listing;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Flushable;
+import java.nio.ByteBuffer;
+
+/**
+ * Appendable target encoding all appended text as UTF-8 directly into a {@link ByteBuffer}.
+ *
+ * <p>The buffer, heap or direct, is reused until it is too small. Then a larger one of the same
+ * kind replaces it. Use it as the streaming target of a {@link Listing}:
+ *
+ * <pre>
+ * Utf8Buffer target = Utf8Buffer.allocate(8192);
+ * unit.list(target);
+ * channel.write(target.toReadOnlyBuffer());
+ * </pre>
+ *
+ * <p>A high surrogate appended last stays pending until the next char completes the pair. It is
+ * neither counted nor read before that. {@link #flush()}, called by the listing when it finishes,
+ * encodes a pending unpaired high surrogate as {@code '?'}.
+ */
+public class Utf8Buffer implements Appendable, Flushable {
+
+  public static Utf8Buffer allocate(int capacity) {
+    return new Utf8Buffer(ByteBuffer.allocate(capacity));
+  }
+
+  public static Utf8Buffer allocateDirect(int capacity) {
+    return new Utf8Buffer(ByteBuffer.allocateDirect(capacity));
+  }
+
+  private ByteBuffer buffer;
+  private char highSurrogate = 0;
+
+  /** Initialize this instance with the given buffer, its content is discarded. */
+  public Utf8Buffer(ByteBuffer buffer) {
+    this.buffer = requireNonNull(buffer, "buffer");
+    buffer.clear();
+  }
+
+  @Override
+  public Utf8Buffer append(char character) {
+    ensureRemaining(4);
+    encode(character);
+    return this;
+  }
+
+  @Override
+  public Utf8Buffer append(CharSequence text) {
+    return append(text, 0, text.length());
+  }
+
+  @Override
+  public Utf8Buffer append(CharSequence text, int start, int end) {
+    ensureRemaining((end - start) * 3 + 1);
+    int index = start;
+    // ascii fast path
+    if (highSurrogate == 0) {
+      while (index < end) {
+        char character = text.charAt(index);
+        if (character >= 0x80) {
+          break;
+        }
+        buffer.put((byte) character);
+        index++;
+      }
+    }
+    while (index < end) {
+      encode(text.charAt(index++));
+    }
+    return this;
+  }
+
+  /** Discard all encoded bytes. */
+  public Utf8Buffer clear() {
+    buffer.clear();
+    highSurrogate = 0;
+    return this;
+  }
+
+  /** Grow buffer, if needed, to hold at least the given number of additional bytes. */
+  public void ensureRemaining(int bytes) {
+    if (buffer.remaining() >= bytes) {
+      return;
+    }
+    int capacity = Math.max(buffer.position() + bytes, buffer.capacity() * 2);
+    ByteBuffer grown =
+        buffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    buffer.flip();
+    grown.put(buffer);
+    buffer = grown;
+  }
+
+  /** Encode a pending unpaired high surrogate as {@code '?'}. */
+  @Override
+  public void flush() {
+    if (highSurrogate != 0) {
+      highSurrogate = 0;
+      ensureRemaining(1);
+      buffer.put((byte) '?');
+    }
+  }
+
+  public boolean isDirect() {
+    return buffer.isDirect();
+  }
+
+  /** Return the number of encoded bytes, a pending high surrogate is not counted. */
+  public int length() {
+    return buffer.position();
+  }
+
+  /**
+   * Return read-only buffer with all bytes encoded so far, ready to be read or written.
+   *
+   * <p>A pending high surrogate is not included and stays pending.
+   */
+  public ByteBuffer toReadOnlyBuffer() {
+    ByteBuffer result = buffer.asReadOnlyBuffer();
+    result.flip();
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "Utf8Buffer{length=" + length() + ", direct=" + isDirect() + "}";
+  }
+
+  private void encode(char character) {
+    if (highSurrogate != 0) {
+      char high = highSurrogate;
+      highSurrogate = 0;
+      if (Character.isLowSurrogate(character)) {
+        int codePoint = Character.toCodePoint(high, character);
+        buffer.put((byte) (0xF0 | (codePoint >> 18)));
+        buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+        buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+        return;
+      }
+      buffer.put((byte) '?');
+    }
+    if (character < 0x80) {
+      buffer.put((byte) character);
+      return;
+    }
+    if (character < 0x800) {
+      buffer.put((byte) (0xC0 | (character >> 6)));
+      buffer.put((byte) (0x80 | (character & 0x3F)));
+      return;
+    }
+    if (Character.isHighSurrogate(character)) {
+      highSurrogate = character;
+      return;
+    }
+    if (Character.isLowSurrogate(character)) {
+      buffer.put((byte) '?');
+      return;
+    }
+    buffer.put((byte) (0xE0 | (character >> 12)));
+    buffer.put((byte) (0x80 | ((character >> 6) & 0x3F)));
+    buffer.put((byte) (0x80 | (character & 0x3F)));
+  }
+}
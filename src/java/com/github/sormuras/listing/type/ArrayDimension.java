@@ -25,6 +25,20 @@ public class ArrayDimension extends Annotated {
     return listing.add(toAnnotationsListable()).add("[]");
   }
 
+  /** Return new array dimension with the same annotations. */
+  public ArrayDimension copy() {
+    ArrayDimension copy = new ArrayDimension();
+    if (isAnnotated()) {
+      copy.addAnnotations(getAnnotations());
+    }
+    return copy;
+  }
+
+  @Override
+  public int estimateLength() {
+    return estimateAnnotationsLength() + 2;
+  }
+
   @Override
   public ElementType getAnnotationTarget() {
     return ElementType.TYPE_USE;
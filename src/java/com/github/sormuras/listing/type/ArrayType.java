@@ -14,13 +14,16 @@
 
 package com.github.sormuras.listing.type;
 
+import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Annotation;
 import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.IntStream;
 
 public class ArrayType extends ReferenceType {
@@ -46,6 +49,7 @@ public class ArrayType extends ReferenceType {
     return array;
   }
 
+  private final Derived<String> className = new Derived<>();
   private JavaType componentType;
   private List<ArrayDimension> dimensions = Collections.emptyList();
 
@@ -58,6 +62,25 @@ public class ArrayType extends ReferenceType {
     return listing.add(getComponentType()).add(getDimensions(), Listable.IDENTITY);
   }
 
+  /** Return new array type with copies of the component type and all dimensions. */
+  @Override
+  public ArrayType copy() {
+    List<ArrayDimension> copies = new ArrayList<>(dimensions.size());
+    dimensions.forEach(dimension -> copies.add(dimension.copy()));
+    return of(componentType.copy(), copies);
+  }
+
+  @Override
+  protected boolean equalsState(Annotated other) {
+    ArrayType that = (ArrayType) other;
+    return Objects.equals(componentType, that.componentType) && dimensions.equals(that.dimensions);
+  }
+
+  @Override
+  public int estimateLength() {
+    return Listable.estimateLength(componentType) + Listable.estimateLength(dimensions, 0);
+  }
+
   @Override
   public List<Annotation> getAnnotations() {
     if (isEmpty()) {
@@ -71,10 +94,15 @@ public class ArrayType extends ReferenceType {
   }
 
   public List<ArrayDimension> getDimensions() {
-    if (dimensions == Collections.EMPTY_LIST) {
-      dimensions = new ArrayList<>();
+    if (dimensions == Collections.EMPTY_LIST && !isShared()) {
+      dimensions = Mutation.trackedList(getHub());
     }
-    return dimensions;
+    return guarded(dimensions);
+  }
+
+  @Override
+  protected int hashState() {
+    return 31 * Objects.hashCode(componentType) + dimensions.hashCode();
   }
 
   @Override
@@ -91,18 +119,45 @@ public class ArrayType extends ReferenceType {
   }
 
   public void setComponentType(JavaType componentType) {
+    markMutated();
     this.componentType = componentType;
   }
 
+  /** Replace all dimensions with the given ones. */
   public void setDimensions(List<ArrayDimension> dimensions) {
-    this.dimensions = dimensions;
+    if (dimensions == this.dimensions) {
+      return;
+    }
+    getDimensions().clear();
+    getDimensions().addAll(dimensions);
+  }
+
+  @Override
+  public void share() {
+    if (componentType instanceof Annotated) {
+      ((Annotated) componentType).share();
+    }
+    dimensions.forEach(ArrayDimension::share);
+    super.share();
   }
 
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(componentType, dimensions));
+  }
+
+  /** Return the binary class name, cached until the component type or a dimension changes. */
   @Override
   public String toClassName() {
+    return className.get(this, ArrayType::className);
+  }
+
+  private static String className(ArrayType array) {
     StringBuilder builder = new StringBuilder();
-    IntStream.range(0, getDimensions().size()).forEach(i -> builder.append('['));
-    JavaType componentType = getComponentType();
+    for (int i = 0; i < array.dimensions.size(); i++) {
+      builder.append('[');
+    }
+    JavaType componentType = array.componentType;
     if (componentType instanceof PrimitiveType) {
       return builder.append(((PrimitiveType) componentType).toArrayClassNameIndicator()).toString();
     }
@@ -15,11 +15,13 @@
 package com.github.sormuras.listing.type;
 
 import com.github.sormuras.listing.Annotated;
+import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import java.lang.annotation.ElementType;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /** Simple and(!) annotatable and(!) typed class or interface name. */
 public class ClassName extends Annotated {
@@ -43,6 +45,31 @@ public class ClassName extends Annotated {
     return listing;
   }
 
+  /** Return new class name with the same name and annotations and copies of all type arguments. */
+  public ClassName copy() {
+    ClassName copy = of(name);
+    if (isAnnotated()) {
+      copy.addAnnotations(getAnnotations());
+    }
+    typeArguments.forEach(argument -> copy.getTypeArguments().add(argument.copy()));
+    return copy;
+  }
+
+  @Override
+  protected boolean equalsState(Annotated other) {
+    ClassName that = (ClassName) other;
+    return Objects.equals(name, that.name) && typeArguments.equals(that.typeArguments);
+  }
+
+  @Override
+  public int estimateLength() {
+    int length = estimateAnnotationsLength() + (name == null ? 0 : name.length());
+    if (typeArguments.isEmpty()) {
+      return length;
+    }
+    return length + 2 + Listable.estimateLength(typeArguments, 2);
+  }
+
   @Override
   public ElementType getAnnotationTarget() {
     return ElementType.TYPE_USE;
@@ -53,13 +80,35 @@ public class ClassName extends Annotated {
   }
 
   public List<TypeArgument> getTypeArguments() {
-    if (typeArguments == Collections.EMPTY_LIST) {
-      typeArguments = new ArrayList<>();
+    if (typeArguments == Collections.EMPTY_LIST && !isShared()) {
+      typeArguments = Mutation.trackedList(getHub());
     }
-    return typeArguments;
+    return guarded(typeArguments);
+  }
+
+  @Override
+  protected int hashState() {
+    return 31 * Objects.hashCode(name) + typeArguments.hashCode();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return name == null && !isAnnotated() && typeArguments.isEmpty();
   }
 
   public void setName(String name) {
+    markMutated();
     this.name = name;
   }
+
+  @Override
+  public void share() {
+    typeArguments.forEach(TypeArgument::share);
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(typeArguments));
+  }
 }
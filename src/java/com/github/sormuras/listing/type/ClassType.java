@@ -15,12 +15,15 @@
 package com.github.sormuras.listing.type;
 
 import static java.util.Arrays.stream;
-import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 
+import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Annotation;
+import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import com.github.sormuras.listing.Name;
+import com.github.sormuras.listing.RenderCache;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -29,6 +32,24 @@ import java.util.Optional;
 
 public class ClassType extends ReferenceType {
 
+  /** Names derived from the package name and the simple names. */
+  private static final class Identity {
+    final String className;
+    final Name name;
+    final Name topLevel;
+
+    Identity(ClassType type) {
+      List<String> simpleNames = new ArrayList<>(type.names.size());
+      type.names.forEach(n -> simpleNames.add(n.getName()));
+      this.name = Name.shared(type.packageName, simpleNames);
+      int size = Math.min(1, simpleNames.size());
+      this.topLevel = Name.shared(type.packageName, simpleNames.subList(0, size));
+      String binaryName = String.join("$", simpleNames);
+      String packageName = type.packageName;
+      this.className = packageName.isEmpty() ? binaryName : packageName + '.' + binaryName;
+    }
+  }
+
   public static ClassType of(Class<?> type) {
     return of(Name.of(type));
   }
@@ -60,19 +81,37 @@ public class ClassType extends ReferenceType {
     return classType;
   }
 
-  private final List<ClassName> names = new ArrayList<>();
+  private final Derived<Identity> identity = new Derived<>();
+  private final List<ClassName> names = Mutation.trackedList(getHub());
   private String packageName = "";
+  private final RenderCache renderCache = new RenderCache();
 
   @Override
   public Listing apply(Listing listing) {
-    Name name = getName();
-    boolean skipPackageName = getPackageName().isEmpty();
-    skipPackageName |= listing.getImported().test(name);
-    skipPackageName |= listing.isOmitJavaLangPackage() && name.isJavaLangPackage();
-    if (!skipPackageName) {
-      listing.add(getPackageName()).add('.');
+    if (listing.isRenderCacheEnabled()) {
+      return renderCache.apply(listing, getMutationStamp(), this::render);
     }
-    return listing.add(getNames(), ".");
+    return render(listing);
+  }
+
+  /** Return new class type with copies of all class names. */
+  @Override
+  public ClassType copy() {
+    ClassType copy = new ClassType();
+    copy.setPackageName(packageName);
+    names.forEach(name -> copy.getNames().add(name.copy()));
+    return copy;
+  }
+
+  @Override
+  protected boolean equalsState(Annotated other) {
+    ClassType that = (ClassType) other;
+    return packageName.equals(that.packageName) && names.equals(that.names);
+  }
+
+  @Override
+  public int estimateLength() {
+    return packageName.length() + 1 + Listable.estimateLength(names, 1);
   }
 
   @Override
@@ -84,17 +123,16 @@ public class ClassType extends ReferenceType {
     if (names.size() == 1) {
       return Optional.empty();
     }
-    return Optional.of(of(getName().getEnclosing().get()));
+    return Optional.of(of(identity().name.getEnclosing().get()));
   }
 
+  /** Return the shared name of this type, cached until the package or a simple name changes. */
   public Name getName() {
-    List<String> simpleNames = new ArrayList<>();
-    names.forEach(n -> simpleNames.add(n.getName()));
-    return new Name(getPackageName(), simpleNames);
+    return identity().name;
   }
 
   public List<ClassName> getNames() {
-    return names;
+    return guarded(names);
   }
 
   public String getPackageName() {
@@ -105,6 +143,11 @@ public class ClassType extends ReferenceType {
     return names.get(names.size() - 1).getTypeArguments();
   }
 
+  @Override
+  protected int hashState() {
+    return 31 * packageName.hashCode() + names.hashCode();
+  }
+
   @Override
   public boolean isAnnotated() {
     return names.get(names.size() - 1).isAnnotated();
@@ -112,20 +155,43 @@ public class ClassType extends ReferenceType {
 
   @Override
   public boolean isJavaLangObject() {
-    return getName().isJavaLangObject();
+    return identity().name.isJavaLangObject();
   }
 
   public void setPackageName(String packageName) {
+    markMutated();
     this.packageName = packageName;
   }
 
+  @Override
+  public void share() {
+    names.forEach(ClassName::share);
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(names));
+  }
+
   @Override
   public String toClassName() {
-    StringBuilder builder = new StringBuilder();
-    if (!getPackageName().isEmpty()) {
-      builder.append(getPackageName()).append('.');
+    return identity().className;
+  }
+
+  private Identity identity() {
+    return identity.get(this, Identity::new);
+  }
+
+  /** Render all simple names, prefixed with the package name unless the top-level is imported. */
+  private Listing render(Listing listing) {
+    Identity identity = identity();
+    boolean skipPackageName = packageName.isEmpty();
+    skipPackageName |= listing.getImported().test(identity.topLevel);
+    skipPackageName |= listing.isOmitJavaLangPackage() && identity.name.isJavaLangPackage();
+    if (!skipPackageName) {
+      listing.add(packageName).add('.');
     }
-    builder.append(getNames().stream().map(n -> n.getName()).collect(joining("$")));
-    return builder.toString();
+    return listing.add(names, ".");
   }
 }
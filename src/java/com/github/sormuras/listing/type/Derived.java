@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2016 Christian Stein
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.github.sormuras.listing.type;
+
+import com.github.sormuras.listing.Annotated;
+import java.io.Serializable;
+import java.util.function.Function;
+
+/**
+ * Single-entry cache of a value derived from an annotated node.
+ *
+ * <p>The entry is valid as long as the {@link Annotated#getMutationStamp() stamp} of the node is
+ * the same. The stamp is cached by the node until it or one of its children changes, checking it
+ * is cheap.
+ *
+ * @param <T> type of the derived value
+ */
+final class Derived<T> implements Serializable {
+
+  private static final class Entry<T> {
+    final long stamp;
+    final T value;
+
+    Entry(long stamp, T value) {
+      this.stamp = stamp;
+      this.value = value;
+    }
+  }
+
+  private transient volatile Entry<T> entry;
+
+  /** Return the cached value, or apply the function to the node and cache its result. */
+  <N extends Annotated> T get(N node, Function<? super N, T> function) {
+    Entry<T> entry = this.entry;
+    long stamp = node.getMutationStamp();
+    if (entry != null && entry.stamp == stamp) {
+      return entry.value;
+    }
+    T value = function.apply(node);
+    this.entry = new Entry<>(stamp, value);
+    return value;
+  }
+}
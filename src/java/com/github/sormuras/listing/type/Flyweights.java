@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2016 Christian Stein
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.github.sormuras.listing.type;
+
+import com.github.sormuras.listing.Annotated;
+import com.github.sormuras.listing.Name;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shared and unannotated type instances keyed by their raw class.
+ *
+ * <p>A flyweight is shared by all models using it, annotating or otherwise modifying it throws.
+ * Use {@link JavaType#annotated(com.github.sormuras.listing.Annotation...)} or {@link
+ * JavaType#copy()} to get a modifiable instance. The set of shared classes is fixed on creation,
+ * instances are immutable and safe to use from multiple threads.
+ *
+ * @see JavaType#of(Class)
+ */
+public final class Flyweights {
+
+  /** Create flyweights of the non-array classes. */
+  public static Flyweights of(Class<?>... types) {
+    Map<Class<?>, JavaType> map = new HashMap<>();
+    for (Class<?> type : types) {
+      if (type.isArray()) {
+        throw new IllegalArgumentException("array type can't be shared: " + type);
+      }
+      map.computeIfAbsent(type, Flyweights::create);
+    }
+    return new Flyweights(map);
+  }
+
+  /**
+   * Create flyweights of all primitive types, {@code void}, {@link Object}, {@link String} and the
+   * primitive wrapper classes.
+   */
+  public static Flyweights standard() {
+    return of(
+        boolean.class,
+        byte.class,
+        char.class,
+        double.class,
+        float.class,
+        int.class,
+        long.class,
+        short.class,
+        void.class,
+        Object.class,
+        String.class,
+        Boolean.class,
+        Byte.class,
+        Character.class,
+        Double.class,
+        Float.class,
+        Integer.class,
+        Long.class,
+        Short.class);
+  }
+
+  private static JavaType create(Class<?> type) {
+    Annotated flyweight;
+    if (type == void.class) {
+      flyweight = new VoidType();
+    } else if (type.isPrimitive()) {
+      flyweight = (Annotated) PrimitiveType.of(type);
+    } else {
+      flyweight = ClassType.of(Name.of(type));
+    }
+    flyweight.share();
+    return (JavaType) flyweight;
+  }
+
+  private final Map<Class<?>, JavaType> types;
+
+  private Flyweights(Map<Class<?>, JavaType> types) {
+    this.types = Collections.unmodifiableMap(types);
+  }
+
+  /** Return the shared instance for the class, or a new modifiable type if it isn't shared. */
+  public JavaType get(Class<?> type) {
+    JavaType flyweight = types.get(type);
+    return flyweight != null ? flyweight : JavaType.of(type);
+  }
+
+  /** Return {@code true} if this instance holds a shared type for the class. */
+  public boolean isShared(Class<?> type) {
+    return types.containsKey(type);
+  }
+}
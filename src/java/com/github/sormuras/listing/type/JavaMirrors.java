@@ -15,12 +15,15 @@
 package com.github.sormuras.listing.type;
 
 import com.github.sormuras.listing.Annotatable;
+import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Annotation;
 import com.github.sormuras.listing.Name;
 import java.lang.annotation.ElementType;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.AnnotatedConstruct;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.AnnotationValue;
@@ -88,6 +91,111 @@ public interface JavaMirrors {
     }
   }
 
+  /**
+   * Conversions of one processing round, memoized by mirror identity.
+   *
+   * <p>Declared types without type arguments and annotations are also memoized by their element.
+   * All returned instances are shared, use {@link JavaType#copy()} or {@link
+   * JavaType#annotated(Annotation...)} to get a modifiable type. Entering a new round clears all
+   * memoized conversions. Entering the final round, where {@link
+   * RoundEnvironment#processingOver()} is {@code true}, clears them, too, and nothing is memoized
+   * from then on. So no compiler state is held after processing. {@link #exit()} does the same
+   * explicitly. Instances are not thread-safe.
+   */
+  class Converter {
+
+    private final Map<AnnotationMirror, Annotation> annotations = new IdentityHashMap<>();
+    private final Map<Element, JavaType> elements = new IdentityHashMap<>();
+    private boolean memoizing = true;
+    private RoundEnvironment round = null;
+    private final Map<TypeMirror, JavaType> types = new IdentityHashMap<>();
+
+    /** Add the shared annotations converted from the annotation mirrors of the source. */
+    public <A extends Annotatable> A annotate(A target, AnnotatedConstruct source) {
+      source.getAnnotationMirrors().forEach(m -> target.addAnnotation(of(m)));
+      return target;
+    }
+
+    /** Forget all memoized conversions. */
+    public void clear() {
+      annotations.clear();
+      elements.clear();
+      types.clear();
+    }
+
+    /** Enter the processing round, a new round or the final one clears all memoized conversions. */
+    public Converter enter(RoundEnvironment round) {
+      if (round.processingOver()) {
+        exit();
+        return this;
+      }
+      if (this.round != round) {
+        clear();
+        this.round = round;
+        memoizing = true;
+      }
+      return this;
+    }
+
+    /** Leave processing, clear all memoized conversions and memoize no further ones. */
+    public void exit() {
+      clear();
+      round = null;
+      memoizing = false;
+    }
+
+    /** Return shared annotation converted from the mirror. */
+    public Annotation of(AnnotationMirror mirror) {
+      Annotation annotation = annotations.get(mirror);
+      if (annotation == null) {
+        annotation = JavaMirrors.of(mirror);
+        annotation.share();
+        if (memoizing) {
+          annotations.put(mirror, annotation);
+        }
+      }
+      return annotation;
+    }
+
+    /** Return shared type converted from the mirror. */
+    public JavaType of(TypeMirror mirror) {
+      JavaType type = types.get(mirror);
+      if (type != null) {
+        return type;
+      }
+      Element element = plainElement(mirror);
+      if (element != null) {
+        type = elements.get(element);
+      }
+      if (type == null) {
+        type = JavaMirrors.of(mirror);
+        ((Annotated) type).share();
+        if (element != null && memoizing) {
+          elements.put(element, type);
+        }
+      }
+      if (memoizing) {
+        types.put(mirror, type);
+      }
+      return type;
+    }
+
+    /** Return the element of a plain declared type, or {@code null}. */
+    private static Element plainElement(TypeMirror mirror) {
+      if (mirror.getKind() != TypeKind.DECLARED || !mirror.getAnnotationMirrors().isEmpty()) {
+        return null;
+      }
+      javax.lang.model.type.DeclaredType declared = (javax.lang.model.type.DeclaredType) mirror;
+      if (!declared.getTypeArguments().isEmpty()) {
+        return null;
+      }
+      if (declared.getEnclosingType().getKind() != TypeKind.NONE) {
+        return null;
+      }
+      return declared.asElement();
+    }
+  }
+
   class Visitor extends SimpleTypeVisitor8<JavaType, Object> {
 
     @Override
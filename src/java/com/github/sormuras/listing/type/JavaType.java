@@ -18,15 +18,9 @@ import com.github.sormuras.listing.Annotatable;
 import com.github.sormuras.listing.Annotation;
 import com.github.sormuras.listing.Name;
 import java.lang.annotation.ElementType;
-import java.lang.reflect.AnnotatedArrayType;
-import java.lang.reflect.AnnotatedParameterizedType;
 import java.lang.reflect.AnnotatedType;
-import java.lang.reflect.AnnotatedTypeVariable;
-import java.lang.reflect.AnnotatedWildcardType;
-import java.lang.reflect.GenericArrayType;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.TypeVariable;
-import java.lang.reflect.WildcardType;
+import java.util.Arrays;
+import java.util.Collection;
 
 /**
  * The Java programming language is a statically typed language, which means that every variable and
@@ -45,29 +39,21 @@ import java.lang.reflect.WildcardType;
  */
 public interface JavaType extends Annotatable {
 
-  /** Create {@link JavaType} based on {@link AnnotatedType} instance. */
+  /**
+   * Create {@link JavaType} based on {@link AnnotatedType} instance.
+   *
+   * <p>The returned type is a cached and shared snapshot. Use {@link #annotated(Annotation...)} or
+   * {@link #copy()} to get a modifiable instance.
+   */
   public static JavaType of(AnnotatedType annotatedType) {
-    if (annotatedType instanceof AnnotatedArrayType) {
-      return JavaTypes.of((AnnotatedArrayType) annotatedType);
-    }
-    if (annotatedType instanceof AnnotatedParameterizedType) {
-      return JavaTypes.of((AnnotatedParameterizedType) annotatedType);
-    }
-    if (annotatedType instanceof AnnotatedTypeVariable) {
-      return JavaTypes.of((AnnotatedTypeVariable) annotatedType);
-    }
-    if (annotatedType instanceof AnnotatedWildcardType) {
-      return JavaTypes.of((AnnotatedWildcardType) annotatedType);
-    }
-    // default case: use underlying raw type
-    JavaType result = of(annotatedType.getType());
-    result.getAnnotations().addAll(Annotation.of(annotatedType.getAnnotations()));
-    return result;
+    return TypeCache.get(annotatedType);
   }
 
   /**
    * Create {@link JavaType} based on {@link Class} instance.
    *
+   * <p>The returned type is a new and modifiable instance. Use {@link Flyweights} to share types.
+   *
    * @return raw (not annotated, not generic) JavaType
    */
   public static JavaType of(Class<?> classType) {
@@ -93,24 +79,44 @@ public interface JavaType extends Annotatable {
   /**
    * Create {@link JavaType} based on {@link java.lang.reflect.Type} instance.
    *
+   * <p>Generic types are converted once, the returned type is a cached and shared snapshot. Use
+   * {@link #annotated(Annotation...)} or {@link #copy()} to get a modifiable instance.
+   *
    * @return potentially annotated and generic JavaType
    */
   public static JavaType of(java.lang.reflect.Type type) {
-    if (type instanceof GenericArrayType) {
-      return JavaTypes.of((GenericArrayType) type);
-    }
-    if (type instanceof ParameterizedType) {
-      return JavaTypes.of((ParameterizedType) type);
-    }
-    if (type instanceof TypeVariable<?>) {
-      return JavaTypes.of((TypeVariable<?>) type);
+    if (type instanceof Class) {
+      return of((Class<?>) type);
     }
-    if (type instanceof WildcardType) {
-      return JavaTypes.of((WildcardType) type);
+    return TypeCache.get(type);
+  }
+
+  /**
+   * Return this type with the annotations added.
+   *
+   * <p>A shared type is not modified, instead an annotated copy is returned.
+   */
+  default JavaType annotated(Annotation... annotations) {
+    return annotated(Arrays.asList(annotations));
+  }
+
+  /**
+   * Return this type with the annotations added.
+   *
+   * <p>A shared type is not modified, instead an annotated copy is returned.
+   */
+  default JavaType annotated(Collection<Annotation> annotations) {
+    if (annotations.isEmpty()) {
+      return this;
     }
-    return of((Class<?>) type);
+    JavaType type = isShared() ? copy() : this;
+    type.addAnnotations(annotations);
+    return type;
   }
 
+  /** Return new modifiable copy of this type. */
+  JavaType copy();
+
   @Override
   default ElementType getAnnotationTarget() {
     return ElementType.TYPE_USE;
@@ -51,7 +51,7 @@ public interface JavaTypes {
       arguments.add(TypeArgument.of(JavaType.of(actual)));
     }
     ParameterizedType pt = (ParameterizedType) annotatedType.getType();
-    ClassType result = (ClassType) JavaType.of(pt.getRawType());
+    ClassType result = ClassType.of((Class<?>) pt.getRawType());
     result.getAnnotations().addAll(Annotation.of(annotatedType.getAnnotations()));
     result.getTypeArguments().addAll(arguments);
     return result;
@@ -102,7 +102,7 @@ public interface JavaTypes {
     for (java.lang.reflect.Type actual : type.getActualTypeArguments()) {
       arguments.add(TypeArgument.of(JavaType.of(actual)));
     }
-    ClassType result = (ClassType) JavaType.of(type.getRawType());
+    ClassType result = ClassType.of((Class<?>) type.getRawType());
     result.getTypeArguments().addAll(arguments);
     return result;
   }
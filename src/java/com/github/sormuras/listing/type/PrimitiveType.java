@@ -128,6 +128,20 @@ public interface PrimitiveType extends JavaType {
     return listing.add(type.toAnnotationsListable()).add(toClassName());
   }
 
+  @Override
+  default JavaType copy() {
+    JavaType copy = of(getType());
+    if (isAnnotated()) {
+      copy.addAnnotations(getAnnotations());
+    }
+    return copy;
+  }
+
+  @Override
+  default int estimateLength() {
+    return estimateAnnotationsLength() + 7;
+  }
+
   Class<?> getType();
 
   default char toArrayClassNameIndicator() {
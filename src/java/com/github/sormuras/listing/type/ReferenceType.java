@@ -22,4 +22,8 @@ import com.github.sormuras.listing.Annotated;
  *
  * @see https://docs.oracle.com/javase/specs/jls/se8/html/jls-4.html#jls-4.3
  */
-public abstract class ReferenceType extends Annotated implements JavaType {}
+public abstract class ReferenceType extends Annotated implements JavaType {
+
+  @Override
+  public abstract ReferenceType copy();
+}
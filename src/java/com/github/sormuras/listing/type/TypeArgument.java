@@ -16,6 +16,8 @@ package com.github.sormuras.listing.type;
 
 import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
+import com.github.sormuras.listing.RenderCache;
 import java.util.Objects;
 
 /**
@@ -23,7 +25,7 @@ import java.util.Objects;
  *
  * @see https://docs.oracle.com/javase/specs/jls/se8/html/jls-4.html#jls-4.5.1
  */
-public class TypeArgument implements Listable {
+public class TypeArgument implements Mutation.Source {
 
   public static TypeArgument of(Class<?> argument) {
     return of(JavaType.of(argument));
@@ -44,15 +46,55 @@ public class TypeArgument implements Listable {
     throw new AssertionError("neither reference nor wildcard: " + argument);
   }
 
+  private final Mutation.Hub hub = new Mutation.Hub();
+  private long mutationStamp = 0;
   private ReferenceType reference;
+  private final RenderCache renderCache = new RenderCache();
+  private boolean shared = false;
   private WildcardType wildcard;
 
   @Override
   public Listing apply(Listing listing) {
-    if (reference == null) {
-      return listing.add(wildcard);
+    if (listing.isRenderCacheEnabled()) {
+      return renderCache.apply(listing, getMutationStamp(), this::render);
     }
-    return listing.add(reference);
+    return render(listing);
+  }
+
+  /** Return new type argument with a copy of the reference or wildcard type. */
+  public TypeArgument copy() {
+    if (isEmpty()) {
+      return new TypeArgument();
+    }
+    return of(reference == null ? wildcard.copy() : reference.copy());
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof TypeArgument)) {
+      return false;
+    }
+    TypeArgument other = (TypeArgument) obj;
+    return Objects.equals(reference, other.reference) && Objects.equals(wildcard, other.wildcard);
+  }
+
+  @Override
+  public int estimateLength() {
+    return Listable.estimateLength(reference == null ? wildcard : reference);
+  }
+
+  /** Return the hub notified by a replaced reference or wildcard type. */
+  @Override
+  public Mutation.Hub getHub() {
+    return hub;
+  }
+
+  @Override
+  public long getMutationStamp() {
+    return Math.max(mutationStamp, Mutation.stamp(reference, wildcard));
   }
 
   public ReferenceType getReference() {
@@ -63,13 +105,57 @@ public class TypeArgument implements Listable {
     return wildcard;
   }
 
+  @Override
+  public int hashCode() {
+    return 31 * Objects.hashCode(reference) + Objects.hashCode(wildcard);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return reference == null && wildcard == null;
+  }
+
+  /** Return {@code true} if this instance is shared and therefore unmodifiable. */
+  public boolean isShared() {
+    return shared;
+  }
+
   public void setReference(ReferenceType reference) {
+    checkNotShared();
     this.reference = reference;
     this.wildcard = null;
+    this.mutationStamp = hub.changed();
   }
 
   public void setWildcard(WildcardType wildcard) {
+    checkNotShared();
     this.wildcard = wildcard;
     this.reference = null;
+    this.mutationStamp = hub.changed();
+  }
+
+  /** Mark this type argument and its type as shared, any later modification throws. */
+  public void share() {
+    if (reference != null) {
+      reference.share();
+    }
+    if (wildcard != null) {
+      wildcard.share();
+    }
+    shared = true;
+    hub.freeze();
+  }
+
+  private void checkNotShared() {
+    if (shared) {
+      throw new UnsupportedOperationException("shared node is unmodifiable: " + this);
+    }
+  }
+
+  private Listing render(Listing listing) {
+    if (reference == null) {
+      return listing.add(wildcard);
+    }
+    return listing.add(reference);
   }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2016 Christian Stein
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.github.sormuras.listing.type;
+
+import com.github.sormuras.listing.Annotated;
+import com.github.sormuras.listing.Annotation;
+import java.lang.reflect.AnnotatedArrayType;
+import java.lang.reflect.AnnotatedParameterizedType;
+import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.AnnotatedTypeVariable;
+import java.lang.reflect.AnnotatedWildcardType;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Shared snapshots of converted reflection types.
+ *
+ * <p>Generic types are keyed by themselves. Annotated types don't implement value-based equality
+ * on Java 8, they are keyed by a list of their type, annotations and nested annotated types.
+ *
+ * <p>The cache is a concurrent map holding at most {@value #CACHE_SIZE} types, lookups don't lock.
+ * If it is full, an arbitrary entry is evicted. Evicting entries one by one keeps most types cached
+ * and releases the classes, and their loaders, referenced by evicted keys.
+ *
+ * @see JavaType#of(Type)
+ * @see JavaType#of(AnnotatedType)
+ */
+final class TypeCache {
+
+  /** Maximum number of types held in the cache. */
+  static final int CACHE_SIZE = 4096;
+
+  private static final Map<Object, JavaType> TYPES = new ConcurrentHashMap<>();
+
+  /** Return shared snapshot of the converted annotated type. */
+  static JavaType get(AnnotatedType annotatedType) {
+    return get(key(annotatedType), () -> convert(annotatedType));
+  }
+
+  /** Return shared snapshot of the converted generic type. */
+  static JavaType get(Type type) {
+    return get(type, () -> convert(type));
+  }
+
+  /** Return value-based key of the annotated type. */
+  static Object key(AnnotatedType annotatedType) {
+    List<Object> key = new ArrayList<>();
+    key.add(annotatedType.getType());
+    key.add(Arrays.asList(annotatedType.getAnnotations()));
+    if (annotatedType instanceof AnnotatedArrayType) {
+      key.add(key(((AnnotatedArrayType) annotatedType).getAnnotatedGenericComponentType()));
+    }
+    if (annotatedType instanceof AnnotatedParameterizedType) {
+      AnnotatedParameterizedType parameterized = (AnnotatedParameterizedType) annotatedType;
+      key.add(keys(parameterized.getAnnotatedActualTypeArguments()));
+    }
+    if (annotatedType instanceof AnnotatedWildcardType) {
+      AnnotatedWildcardType wildcard = (AnnotatedWildcardType) annotatedType;
+      key.add(keys(wildcard.getAnnotatedLowerBounds()));
+      key.add(keys(wildcard.getAnnotatedUpperBounds()));
+    }
+    return key;
+  }
+
+  private static JavaType convert(AnnotatedType annotatedType) {
+    if (annotatedType instanceof AnnotatedArrayType) {
+      return JavaTypes.of((AnnotatedArrayType) annotatedType);
+    }
+    if (annotatedType instanceof AnnotatedParameterizedType) {
+      return JavaTypes.of((AnnotatedParameterizedType) annotatedType);
+    }
+    if (annotatedType instanceof AnnotatedTypeVariable) {
+      return JavaTypes.of((AnnotatedTypeVariable) annotatedType);
+    }
+    if (annotatedType instanceof AnnotatedWildcardType) {
+      return JavaTypes.of((AnnotatedWildcardType) annotatedType);
+    }
+    // default case: use underlying raw type
+    JavaType type = JavaType.of(annotatedType.getType());
+    return type.annotated(Annotation.of(annotatedType.getAnnotations()));
+  }
+
+  private static JavaType convert(Type type) {
+    if (type instanceof GenericArrayType) {
+      return JavaTypes.of((GenericArrayType) type);
+    }
+    if (type instanceof ParameterizedType) {
+      return JavaTypes.of((ParameterizedType) type);
+    }
+    if (type instanceof java.lang.reflect.TypeVariable<?>) {
+      return JavaTypes.of((java.lang.reflect.TypeVariable<?>) type);
+    }
+    if (type instanceof java.lang.reflect.WildcardType) {
+      return JavaTypes.of((java.lang.reflect.WildcardType) type);
+    }
+    return JavaType.of((Class<?>) type);
+  }
+
+  /** Conversion may recurse into this cache, so no {@code computeIfAbsent} is used here. */
+  private static JavaType get(Object key, Supplier<JavaType> converter) {
+    JavaType type = TYPES.get(key);
+    if (type != null) {
+      return type;
+    }
+    type = converter.get();
+    ((Annotated) type).share();
+    if (TYPES.size() >= CACHE_SIZE) {
+      Iterator<Object> iterator = TYPES.keySet().iterator();
+      if (iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+      }
+    }
+    JavaType present = TYPES.putIfAbsent(key, type);
+    return present != null ? present : type;
+  }
+
+  private static List<Object> keys(AnnotatedType[] annotatedTypes) {
+    List<Object> keys = new ArrayList<>(annotatedTypes.length);
+    for (AnnotatedType annotatedType : annotatedTypes) {
+      keys.add(key(annotatedType));
+    }
+    return keys;
+  }
+
+  private TypeCache() {}
+}
@@ -14,6 +14,7 @@
 
 package com.github.sormuras.listing.type;
 
+import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Listing;
 import java.lang.annotation.ElementType;
 
@@ -38,6 +39,24 @@ public class TypeVariable extends ReferenceType {
     return listing.add(toAnnotationsListable()).add(getName());
   }
 
+  /** Return new type variable with the same name and annotations. */
+  @Override
+  public TypeVariable copy() {
+    TypeVariable copy = of(name);
+    copy.addAnnotations(getAnnotations());
+    return copy;
+  }
+
+  @Override
+  protected boolean equalsState(Annotated other) {
+    return name.equals(((TypeVariable) other).name);
+  }
+
+  @Override
+  public int estimateLength() {
+    return estimateAnnotationsLength() + name.length();
+  }
+
   @Override
   public ElementType getAnnotationTarget() {
     return ElementType.TYPE_PARAMETER;
@@ -47,10 +66,16 @@ public class TypeVariable extends ReferenceType {
     return name;
   }
 
+  @Override
+  protected int hashState() {
+    return name.hashCode();
+  }
+
   public void setName(String name) {
     if (name.isEmpty()) {
       throw new IllegalArgumentException("TypeVariable name must not be empty!");
     }
+    markMutated();
     this.name = name;
   }
 }
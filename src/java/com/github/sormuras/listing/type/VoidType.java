@@ -28,6 +28,16 @@ public class VoidType extends Annotated implements JavaType {
     return listing.add("void");
   }
 
+  @Override
+  public VoidType copy() {
+    return new VoidType();
+  }
+
+  @Override
+  public int estimateLength() {
+    return 4;
+  }
+
   @Override
   public List<Annotation> getAnnotations() {
     return Collections.emptyList();
@@ -16,8 +16,10 @@ package com.github.sormuras.listing.type;
 
 import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import java.lang.annotation.ElementType;
 import java.lang.reflect.Type;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -68,6 +70,37 @@ public class WildcardType extends Annotated implements JavaType {
     return listing;
   }
 
+  /** Return new wildcard type with the same annotations and a copy of the bound. */
+  @Override
+  public WildcardType copy() {
+    WildcardType copy = new WildcardType();
+    if (boundSuper != null) {
+      copy.setBoundSuper(boundSuper.copy());
+    } else {
+      copy.setBoundExtends(boundExtends.copy());
+    }
+    copy.addAnnotations(getAnnotations());
+    return copy;
+  }
+
+  @Override
+  protected boolean equalsState(Annotated other) {
+    WildcardType that = (WildcardType) other;
+    return boundExtends.equals(that.boundExtends) && Objects.equals(boundSuper, that.boundSuper);
+  }
+
+  @Override
+  public int estimateLength() {
+    int length = estimateAnnotationsLength() + 1;
+    if (boundSuper != null) {
+      return length + 7 + boundSuper.estimateLength();
+    }
+    if (!boundExtends.isJavaLangObject()) {
+      return length + 9 + boundExtends.estimateLength();
+    }
+    return length;
+  }
+
   @Override
   public ElementType getAnnotationTarget() {
     return ElementType.TYPE_PARAMETER;
@@ -81,15 +114,36 @@ public class WildcardType extends Annotated implements JavaType {
     return Optional.ofNullable(boundSuper);
   }
 
+  @Override
+  protected int hashState() {
+    return 31 * boundExtends.hashCode() + Objects.hashCode(boundSuper);
+  }
+
   /** Set upper bound, read {@code extends}, type. */
   public void setBoundExtends(ReferenceType boundExtends) {
+    markMutated();
     this.boundExtends = boundExtends;
     this.boundSuper = null;
   }
 
   /** Set lower bound, read {@code super}, type. */
   public void setBoundSuper(ReferenceType boundSuper) {
+    markMutated();
     this.boundExtends = ClassType.of(Object.class);
     this.boundSuper = boundSuper;
   }
+
+  @Override
+  public void share() {
+    boundExtends.share();
+    if (boundSuper != null) {
+      boundSuper.share();
+    }
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(boundExtends, boundSuper));
+  }
 }
@@ -14,11 +14,12 @@
 
 package com.github.sormuras.listing.unit;
 
+import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Annotation;
 import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import com.github.sormuras.listing.type.JavaType;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -30,8 +31,8 @@ import java.util.List;
  */
 public class AnnotationDeclaration extends TypeDeclaration {
 
-  private final List<ConstantDeclaration> constants = new ArrayList<>();
-  private final List<AnnotationElement> elements = new ArrayList<>();
+  private final List<ConstantDeclaration> constants = Mutation.trackedList(getHub());
+  private final List<AnnotationElement> elements = Mutation.trackedList(getHub());
 
   @Override
   public Listing apply(Listing listing) {
@@ -91,16 +92,56 @@ public class AnnotationDeclaration extends TypeDeclaration {
     return declareElement(returnType, name, Annotation.value(defaultValue));
   }
 
+  @Override
+  protected boolean equalsState(Annotated other) {
+    AnnotationDeclaration that = (AnnotationDeclaration) other;
+    return super.equalsState(other)
+        && constants.equals(that.constants)
+        && elements.equals(that.elements);
+  }
+
+  @Override
+  public int estimateLength() {
+    int length = estimateTypeLength("@interface");
+    length += Listable.estimateLength(constants, 0);
+    length += Listable.estimateLength(elements, 0);
+    return length;
+  }
+
+  @Override
+  public int estimateLines() {
+    int lines = estimateTypeLines();
+    return lines + Listable.estimateLines(constants) + Listable.estimateLines(elements);
+  }
+
   public List<ConstantDeclaration> getConstants() {
-    return constants;
+    return guarded(constants);
   }
 
   public List<AnnotationElement> getElements() {
-    return elements;
+    return guarded(elements);
+  }
+
+  @Override
+  protected int hashState() {
+    return 31 * (31 * super.hashState() + constants.hashCode()) + elements.hashCode();
   }
 
   @Override
   public boolean isEmpty() {
     return super.isEmpty() && getElements().isEmpty() && getConstants().isEmpty();
   }
+
+  /** Mark this declaration and all its child nodes as shared, any later change throws. */
+  @Override
+  public void share() {
+    Sharing.shareAll(constants);
+    Sharing.shareAll(elements);
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(constants, elements));
+  }
 }
@@ -14,10 +14,13 @@
 
 package com.github.sormuras.listing.unit;
 
+import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import com.github.sormuras.listing.type.JavaType;
 import java.lang.annotation.ElementType;
+import java.util.Objects;
 
 /**
  * The body of an annotation type declaration may contain method declarations, each of which defines
@@ -43,6 +46,29 @@ public class AnnotationElement extends NamedMember {
     return listing;
   }
 
+  @Override
+  protected boolean equalsState(Annotated other) {
+    AnnotationElement that = (AnnotationElement) other;
+    return super.equalsState(other)
+        && Objects.equals(returnType, that.returnType)
+        && Objects.equals(defaultValue, that.defaultValue);
+  }
+
+  @Override
+  public int estimateLength() {
+    int length = estimateAnnotationsLength() + Listable.estimateLength(returnType);
+    length += 1 + estimateNameLength() + 3;
+    if (defaultValue != null) {
+      length += 9 + defaultValue.estimateLength();
+    }
+    return length;
+  }
+
+  @Override
+  public int estimateLines() {
+    return 2 + estimateAnnotationsLines();
+  }
+
   @Override
   public ElementType getAnnotationTarget() {
     return ElementType.METHOD;
@@ -56,11 +82,32 @@ public class AnnotationElement extends NamedMember {
     return returnType;
   }
 
+  @Override
+  protected int hashState() {
+    int hash = 31 * super.hashState() + Objects.hashCode(returnType);
+    return 31 * hash + Objects.hashCode(defaultValue);
+  }
+
   public void setDefaultValue(Listable defaultValue) {
+    markMutated();
     this.defaultValue = defaultValue;
   }
 
   public void setReturnType(JavaType type) {
+    markMutated();
     this.returnType = type;
   }
+
+  /** Mark this element, its type and default value as shared, any later change throws. */
+  @Override
+  public void share() {
+    Sharing.share(returnType);
+    Sharing.share(defaultValue);
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(defaultValue, returnType));
+  }
 }
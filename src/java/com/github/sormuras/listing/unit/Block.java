@@ -16,7 +16,8 @@ package com.github.sormuras.listing.unit;
 
 import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
-import java.util.ArrayList;
+import com.github.sormuras.listing.Mutation;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -28,19 +29,22 @@ import java.util.function.Supplier;
  *
  * @see https://docs.oracle.com/javase/specs/jls/se8/html/jls-14.html#jls-14.2
  */
-public class Block implements Listable {
+public class Block implements Mutation.Source {
 
+  private final Mutation.Hub hub = new Mutation.Hub();
+  private long mutationStamp = 0;
   // { LocalVariableDeclarationStatement, Statement, ClassDeclaration }
-  private List<Listable> sequence = new ArrayList<>();
+  private List<Listable> sequence = Mutation.trackedList(hub);
+  private boolean shared = false;
 
   public Block add(Listable listable) {
-    sequence.add(listable);
+    getSequence().add(listable);
     return this;
   }
 
   public Block add(String... lines) {
     for (String line : lines) {
-      sequence.add(l -> l.add(line).newline());
+      getSequence().add(l -> l.add(line).newline());
     }
     return this;
   }
@@ -48,7 +52,7 @@ public class Block implements Listable {
   @Override
   public Listing apply(Listing listing) {
     listing.add('{').newline().indent(1);
-    getSequence().forEach(listing::add);
+    sequence.forEach(listing::add);
     listing.indent(-1).add('}').newline();
     return listing;
   }
@@ -81,7 +85,54 @@ public class Block implements Listable {
     return declaration;
   }
 
+  @Override
+  public int estimateLength() {
+    return 2 + Listable.estimateLength(sequence, 0);
+  }
+
+  @Override
+  public int estimateLines() {
+    return 2 + Listable.estimateLines(sequence);
+  }
+
+  /** Return the hub notified by changes of this block and its sequence. */
+  @Override
+  public Mutation.Hub getHub() {
+    return hub;
+  }
+
+  @Override
+  public long getMutationStamp() {
+    return Math.max(mutationStamp, Mutation.stamp(sequence));
+  }
+
   public List<Listable> getSequence() {
-    return sequence;
+    return shared ? Collections.unmodifiableList(sequence) : sequence;
+  }
+
+  /** Return {@code false} as braces are always rendered. */
+  @Override
+  public boolean isEmpty() {
+    return false;
+  }
+
+  /** Return {@code true} if this block is shared and therefore unmodifiable. */
+  public boolean isShared() {
+    return shared;
+  }
+
+  /** Record a change of one of this block's own properties, throws if this block is shared. */
+  void markMutated() {
+    if (shared) {
+      throw new UnsupportedOperationException("shared block is unmodifiable: " + this);
+    }
+    mutationStamp = hub.changed();
+  }
+
+  /** Mark this block and all its shareable statements as shared, any later change throws. */
+  public void share() {
+    Sharing.shareAll(sequence);
+    shared = true;
+    hub.freeze();
   }
 }
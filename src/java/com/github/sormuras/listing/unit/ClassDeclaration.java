@@ -14,13 +14,15 @@
 
 package com.github.sormuras.listing.unit;
 
+import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import com.github.sormuras.listing.type.ClassType;
 import com.github.sormuras.listing.type.JavaType;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * A class declaration specifies a new named reference type.
@@ -31,7 +33,7 @@ import java.util.List;
  */
 public abstract class ClassDeclaration extends TypeDeclaration {
 
-  private List<Listable> classBodyElements = new ArrayList<>();
+  private List<Listable> classBodyElements = Mutation.trackedList(getHub());
   private List<Initializer> initializers = Collections.emptyList();
   private List<ClassType> interfaces = Collections.emptyList();
   private boolean local = false;
@@ -56,11 +58,11 @@ public abstract class ClassDeclaration extends TypeDeclaration {
   /** Applies class body. */
   public Listing applyClassBodyElements(Listing listing) {
     if (!isDeclarationsEmpty()) {
-      getDeclarations().forEach(listing::add);
+      listing.addParallel(getDeclarations(), Listable.IDENTITY);
     }
-    listing.add(getClassBodyElements());
+    listing.addParallel(classBodyElements, Listable.NEWLINE);
     if (!isInitializersEmpty()) {
-      getInitializers().forEach(listing::add);
+      initializers.forEach(listing::add);
     }
     return listing;
   }
@@ -110,27 +112,78 @@ public abstract class ClassDeclaration extends TypeDeclaration {
     return method;
   }
 
+  @Override
+  void copyFrom(NamedMember base) {
+    super.copyFrom(base);
+    ClassDeclaration type = (ClassDeclaration) base;
+    getClassBodyElements().addAll(type.classBodyElements);
+    if (!type.isInitializersEmpty()) {
+      getInitializers().addAll(type.initializers);
+    }
+    if (!type.isInterfacesEmpty()) {
+      getInterfaces().addAll(type.interfaces);
+    }
+    local = type.local;
+  }
+
+  @Override
+  protected boolean equalsState(Annotated other) {
+    ClassDeclaration that = (ClassDeclaration) other;
+    return super.equalsState(other)
+        && local == that.local
+        && classBodyElements.equals(that.classBodyElements)
+        && initializers.equals(that.initializers)
+        && interfaces.equals(that.interfaces);
+  }
+
+  /** Return estimated length of nested declarations, class body elements and interfaces. */
+  @Override
+  int estimateTypeLength(String keyword) {
+    int length = super.estimateTypeLength(keyword);
+    length += Listable.estimateLength(classBodyElements, 0);
+    length += Listable.estimateLength(initializers, 0);
+    if (!isInterfacesEmpty()) {
+      length += 12 + Listable.estimateLength(interfaces, 2);
+    }
+    return length;
+  }
+
+  @Override
+  int estimateTypeLines() {
+    int lines = super.estimateTypeLines();
+    lines += Listable.estimateLines(classBodyElements);
+    lines += Listable.estimateLines(initializers);
+    return lines;
+  }
+
   public List<Listable> getClassBodyElements() {
-    return classBodyElements;
+    return guarded(classBodyElements);
   }
 
   public List<Initializer> getInitializers() {
-    if (initializers == Collections.EMPTY_LIST) {
-      initializers = new ArrayList<>();
+    if (initializers == Collections.EMPTY_LIST && !isShared()) {
+      initializers = Mutation.trackedList(getHub());
     }
-    return initializers;
+    return guarded(initializers);
   }
 
   public List<ClassType> getInterfaces() {
-    if (interfaces == Collections.EMPTY_LIST) {
-      interfaces = new ArrayList<>();
+    if (interfaces == Collections.EMPTY_LIST && !isShared()) {
+      interfaces = Mutation.trackedList(getHub());
     }
-    return interfaces;
+    return guarded(interfaces);
+  }
+
+  @Override
+  protected int hashState() {
+    int hash = 31 * super.hashState() + classBodyElements.hashCode();
+    hash = 31 * hash + initializers.hashCode();
+    return 31 * (31 * hash + interfaces.hashCode()) + (local ? 1 : 0);
   }
 
   @Override
   public boolean isEmpty() {
-    return super.isEmpty() && isInitializersEmpty() && getClassBodyElements().isEmpty();
+    return super.isEmpty() && isInitializersEmpty() && classBodyElements.isEmpty();
   }
 
   public boolean isInitializersEmpty() {
@@ -145,7 +198,45 @@ public abstract class ClassDeclaration extends TypeDeclaration {
     return local;
   }
 
+  /**
+   * Replace the first class body element the predicate accepts by the member, or add it.
+   *
+   * <p>A member not shared yet is adopted by this declaration first. Shared members keep their
+   * enclosing declaration, which is expected to have the same name as this one.
+   */
+  void putClassBodyElement(NamedMember member, Predicate<Listable> replaces) {
+    if (!member.isShared()) {
+      member.setCompilationUnit(getCompilationUnit());
+      member.setEnclosingDeclaration(this);
+      member.share();
+    }
+    List<Listable> elements = getClassBodyElements();
+    for (int index = 0; index < elements.size(); index++) {
+      if (replaces.test(elements.get(index))) {
+        elements.set(index, member);
+        return;
+      }
+    }
+    elements.add(member);
+  }
+
   public void setLocal(boolean local) {
+    markMutated();
     this.local = local;
   }
+
+  /** Mark this declaration and all its members, initializers and interfaces as shared. */
+  @Override
+  public void share() {
+    Sharing.shareAll(classBodyElements);
+    Sharing.shareAll(initializers);
+    Sharing.shareAll(interfaces);
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    long stamp = Mutation.stamp(classBodyElements, initializers, interfaces);
+    return Math.max(super.stampState(), stamp);
+  }
 }
@@ -14,7 +14,9 @@
 
 package com.github.sormuras.listing.unit;
 
+import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Modifiable;
+import com.github.sormuras.listing.Mutation;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Set;
@@ -29,16 +31,44 @@ public abstract class ClassMemberDeclaration extends NamedMember implements Modi
 
   private Set<Modifier> modifiers = Collections.emptySet();
 
+  @Override
+  void copyFrom(NamedMember base) {
+    super.copyFrom(base);
+    ClassMemberDeclaration member = (ClassMemberDeclaration) base;
+    if (member.isModified()) {
+      getModifiers().addAll(member.modifiers);
+    }
+  }
+
+  @Override
+  protected boolean equalsState(Annotated other) {
+    ClassMemberDeclaration that = (ClassMemberDeclaration) other;
+    return super.equalsState(other) && modifiers.equals(that.modifiers);
+  }
+
   @Override
   public Set<Modifier> getModifiers() {
+    if (isShared()) {
+      return isModified() ? Collections.unmodifiableSet(modifiers) : modifiers;
+    }
     if (modifiers == Collections.EMPTY_SET) {
-      modifiers = EnumSet.noneOf(Modifier.class);
+      modifiers = Mutation.trackedSet(EnumSet.noneOf(Modifier.class), getHub());
     }
     return modifiers;
   }
 
+  @Override
+  protected int hashState() {
+    return 31 * super.hashState() + modifiers.hashCode();
+  }
+
   @Override
   public boolean isModified() {
     return !modifiers.isEmpty();
   }
+
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(modifiers));
+  }
 }
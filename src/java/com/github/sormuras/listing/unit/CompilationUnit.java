@@ -15,11 +15,14 @@
 package com.github.sormuras.listing.unit;
 
 import com.github.sormuras.listing.Compilation;
+import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
 import com.github.sormuras.listing.Listing.Builder;
+import com.github.sormuras.listing.Mutation;
 import com.github.sormuras.listing.Name;
+import com.github.sormuras.listing.SourceMap;
 import java.net.URI;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Supplier;
@@ -36,7 +39,7 @@ import javax.tools.JavaFileObject;
  *
  * @see https://docs.oracle.com/javase/specs/jls/se8/html/jls-7.html#jls-7.3
  */
-public class CompilationUnit implements DeclarationContainer {
+public class CompilationUnit implements DeclarationContainer, Mutation.Source {
 
   public static CompilationUnit of(String packageName) {
     CompilationUnit unit = new CompilationUnit();
@@ -44,15 +47,20 @@ public class CompilationUnit implements DeclarationContainer {
     return unit;
   }
 
-  private List<TypeDeclaration> declarations = new ArrayList<>();
+  private boolean autoImport = false;
+  private final Mutation.Hub hub = new Mutation.Hub();
+  private List<TypeDeclaration> declarations = Mutation.trackedList(hub);
   private ImportDeclarations importDeclarations = new ImportDeclarations();
+  private transient volatile ImportResolution importResolution;
+  private long mutationStamp = 0;
   private PackageDeclaration packageDeclaration = new PackageDeclaration();
+  private boolean shared = false;
 
   @Override
   public Listing apply(Listing listing) {
     listing.add(getPackageDeclaration());
-    listing.add(getImportDeclarations());
-    getDeclarations().forEach(declaration -> declaration.apply(listing));
+    listing.add(getResolvedImportDeclarations());
+    listing.addParallel(declarations, Listable.IDENTITY);
     return listing;
   }
 
@@ -91,8 +99,23 @@ public class CompilationUnit implements DeclarationContainer {
     return declaration;
   }
 
+  @Override
+  public int estimateLength() {
+    int length = packageDeclaration.estimateLength() + importDeclarations.estimateLength();
+    return length + Listable.estimateLength(declarations, 0);
+  }
+
+  @Override
+  public int estimateLines() {
+    int lines = packageDeclaration.estimateLines() + importDeclarations.estimateLines();
+    return lines + Listable.estimateLines(declarations);
+  }
+
   @Override
   public List<TypeDeclaration> getDeclarations() {
+    if (shared) {
+      return Collections.unmodifiableList(declarations);
+    }
     return declarations;
   }
 
@@ -119,6 +142,26 @@ public class CompilationUnit implements DeclarationContainer {
     return importDeclarations;
   }
 
+  /** Return the hub notified by changes of this unit and its declarations. */
+  @Override
+  public Mutation.Hub getHub() {
+    return hub;
+  }
+
+  /** Return highest stamp of this unit, walking the declarations only after one of them changed. */
+  @Override
+  public long getMutationStamp() {
+    if (hub.isValid()) {
+      return hub.getStamp();
+    }
+    return Mutation.stamp(
+        hub,
+        () -> {
+          long highest = Mutation.stamp(declarations, importDeclarations, packageDeclaration);
+          return Math.max(mutationStamp, highest);
+        });
+  }
+
   public PackageDeclaration getPackageDeclaration() {
     return packageDeclaration;
   }
@@ -130,6 +173,24 @@ public class CompilationUnit implements DeclarationContainer {
     return getPackageDeclaration().getName().getPackageName();
   }
 
+  /**
+   * Return the import declarations to render.
+   *
+   * <p>If auto-import is enabled, these are the explicit import declarations amended by a
+   * single-type import for each referenced type that can be imported without conflict. The
+   * resolution is memoized until the unit is mutated.
+   */
+  public ImportDeclarations getResolvedImportDeclarations() {
+    if (!autoImport) {
+      return importDeclarations;
+    }
+    return resolveImports().getDeclarations();
+  }
+
+  public boolean isAutoImport() {
+    return autoImport;
+  }
+
   @Override
   public boolean isEmpty() {
     return getDeclarations().isEmpty()
@@ -137,18 +198,119 @@ public class CompilationUnit implements DeclarationContainer {
         && getImportDeclarations().isEmpty();
   }
 
+  /** Return {@code true} if this unit is shared and therefore unmodifiable. */
+  public boolean isShared() {
+    return shared;
+  }
+
   @Override
   public UnaryOperator<Builder> listOperator() {
-    return builder -> builder.setImported(getImportDeclarations());
+    return builder -> builder.setImported(autoImport ? resolveImports() : importDeclarations);
+  }
+
+  /**
+   * Enable or disable automatic import resolution.
+   *
+   * <p>When enabled, every referenced type is rendered by its simple name if that name is not
+   * claimed by another referenced or declared type.
+   *
+   * @see #getResolvedImportDeclarations()
+   */
+  public void setAutoImport(boolean autoImport) {
+    if (shared) {
+      throw new UnsupportedOperationException("shared unit is unmodifiable");
+    }
+    this.autoImport = autoImport;
+    this.mutationStamp = hub.changed();
   }
 
   public void setPackageName(String packageName) {
     getPackageDeclaration().setName(Name.of(packageName));
   }
 
+  /**
+   * Mark this unit, its package and import declarations and all type declarations as shared.
+   *
+   * <p>A shared unit can be rendered by many threads at once and serves as the base of variants
+   * derived by {@link #withDeclaration(TypeDeclaration)}.
+   */
+  public void share() {
+    Sharing.shareAll(declarations);
+    importDeclarations.share();
+    packageDeclaration.share();
+    shared = true;
+    hub.freeze();
+  }
+
   public JavaFileObject toJavaFileObject() {
     TypeDeclaration declaration = getEponymousDeclaration().get();
     URI uri = getPackageDeclaration().toUri(declaration.getName() + ".java");
     return Compilation.source(uri, list());
   }
+
+  /**
+   * Create source file object, recording the lines rendered by each node into the source map.
+   *
+   * <p>Use the map to find the nodes reported by the diagnostics of a {@link Compilation.Failure}.
+   */
+  public JavaFileObject toJavaFileObject(SourceMap sourceMap) {
+    TypeDeclaration declaration = getEponymousDeclaration().get();
+    URI uri = getPackageDeclaration().toUri(declaration.getName() + ".java");
+    return Compilation.source(uri, list(builder -> builder.setSourceMap(sourceMap)));
+  }
+
+  /**
+   * Return a shared variant of this unit with the declaration replacing the top-level declaration
+   * of the same name, or added as the last one.
+   *
+   * <p>This unit is shared first. The variant references the package and import declarations and
+   * all other type declarations of this unit, deriving it costs only a copy of the declaration
+   * list.
+   */
+  public CompilationUnit withDeclaration(TypeDeclaration declaration) {
+    if (!shared) {
+      share();
+    }
+    CompilationUnit variant = new CompilationUnit();
+    variant.autoImport = autoImport;
+    variant.importDeclarations = importDeclarations;
+    variant.packageDeclaration = packageDeclaration;
+    variant.declarations.addAll(declarations);
+    if (!declaration.isShared()) {
+      declaration.setEnclosingDeclaration(null);
+      declaration.setCompilationUnit(variant);
+    }
+    List<TypeDeclaration> types = variant.declarations;
+    int index = 0;
+    while (index < types.size() && !types.get(index).getName().equals(declaration.getName())) {
+      index++;
+    }
+    if (index < types.size()) {
+      types.set(index, declaration);
+    } else {
+      types.add(declaration);
+    }
+    variant.share();
+    return variant;
+  }
+
+  /**
+   * Return the import resolution valid for the current stamp of this unit.
+   *
+   * <p>An unchanged resolution is kept and restamped, so the imported predicate only changes when
+   * names render differently. Retained renders depend on the predicate's identity.
+   */
+  private ImportResolution resolveImports() {
+    ImportResolution resolution = importResolution;
+    if (resolution == null || resolution.getStamp() != getMutationStamp()) {
+      ImportResolution resolved = ImportResolution.resolve(this);
+      if (resolution != null && resolution.resolvesLike(resolved)) {
+        resolution.setStamp(resolved.getStamp());
+      } else {
+        resolution = resolved;
+      }
+      importResolution = resolution;
+    }
+    return resolution;
+  }
 }
@@ -0,0 +1,453 @@
+/*
+ * Copyright (C) 2016 Christian Stein
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.github.sormuras.listing.unit;
+
+import static java.util.stream.Collectors.toList;
+
+import com.github.sormuras.listing.Annotatable;
+import com.github.sormuras.listing.Annotation;
+import com.github.sormuras.listing.Listable;
+import com.github.sormuras.listing.Name;
+import com.github.sormuras.listing.type.ClassType;
+import com.github.sormuras.listing.type.JavaType;
+import com.github.sormuras.listing.type.TypeVariable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Mirror compiled classes into compilation units.
+ *
+ * <p>Each class is reflected into a declaration of the same kind with its annotations, modifiers,
+ * type parameters, super types, fields, constructors, methods and member types. Method bodies are
+ * not mirrored, concrete methods and constructors get a stub body throwing {@link
+ * UnsupportedOperationException}. Field initializers are not mirrored, except the values of
+ * interface and annotation constants of primitive or string type. Reading those initializes the
+ * declaring class. All other constants are initialized with the default value of their type. Enum
+ * constructors are skipped.
+ *
+ * <p>All units created by one call share their converted annotations, types are shared by the
+ * cache behind {@link JavaType#of(AnnotatedType)}. Independent classes are mirrored in parallel.
+ */
+public final class CompilationUnits {
+
+  /** Annotation types applicable in type contexts, rendered as part of the annotated type. */
+  private static final ClassValue<Boolean> TYPE_USE =
+      new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+          Target target = type.getAnnotation(Target.class);
+          return target != null && Arrays.asList(target.value()).contains(ElementType.TYPE_USE);
+        }
+      };
+
+  /** Load all top-level classes of the package, without initializing them. */
+  public static List<Class<?>> classes(ClassLoader loader, String packageName) {
+    String path = packageName.replace('.', '/');
+    Set<String> names = new TreeSet<>();
+    try {
+      Enumeration<URL> urls = loader.getResources(path);
+      while (urls.hasMoreElements()) {
+        URL url = urls.nextElement();
+        if (url.getProtocol().equals("jar")) {
+          JarURLConnection connection = (JarURLConnection) url.openConnection();
+          connection.setUseCaches(false);
+          try (JarFile jar = connection.getJarFile()) {
+            for (Enumeration<JarEntry> e = jar.entries(); e.hasMoreElements(); ) {
+              String name = e.nextElement().getName();
+              if (name.startsWith(path + '/') && name.indexOf('/', path.length() + 1) < 0) {
+                names.add(name.substring(path.length() + 1));
+              }
+            }
+          }
+          continue;
+        }
+        try (Stream<Path> files = Files.list(Paths.get(url.toURI()))) {
+          files.forEach(file -> names.add(file.getFileName().toString()));
+        }
+      }
+    } catch (IOException exception) {
+      throw new UncheckedIOException("scanning package " + packageName + " failed", exception);
+    } catch (URISyntaxException exception) {
+      throw new IllegalArgumentException("scanning package " + packageName + " failed", exception);
+    }
+    List<Class<?>> classes = new ArrayList<>();
+    for (String name : names) {
+      if (!name.endsWith(".class") || name.indexOf('$') >= 0 || name.indexOf('-') >= 0) {
+        continue;
+      }
+      String className = packageName + '.' + name.substring(0, name.length() - 6);
+      try {
+        Class<?> type = Class.forName(className, false, loader);
+        if (!type.isSynthetic()) {
+          classes.add(type);
+        }
+      } catch (ClassNotFoundException exception) {
+        throw new IllegalStateException("loading " + className + " failed", exception);
+      }
+    }
+    return classes;
+  }
+
+  /** Mirror the class into a new compilation unit. */
+  public static CompilationUnit of(Class<?> type) {
+    return new CompilationUnits().unit(type);
+  }
+
+  /** Mirror the classes into new compilation units, in parallel using the common pool. */
+  public static List<CompilationUnit> of(Collection<? extends Class<?>> types) {
+    return of(ForkJoinPool.commonPool(), types);
+  }
+
+  /** Mirror the classes into new compilation units, in parallel using the given pool. */
+  public static List<CompilationUnit> of(ForkJoinPool pool, Collection<? extends Class<?>> types) {
+    CompilationUnits units = new CompilationUnits();
+    return pool.submit(() -> types.parallelStream().map(units::unit).collect(toList())).join();
+  }
+
+  /** Mirror all top-level classes of the package found by the context class loader. */
+  public static List<CompilationUnit> ofPackage(String packageName) {
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    return of(ForkJoinPool.commonPool(), classes(loader, packageName));
+  }
+
+  private final Map<java.lang.annotation.Annotation, Annotation> annotations =
+      new ConcurrentHashMap<>();
+
+  private CompilationUnits() {}
+
+  /** Add shared copies of the declared annotations, skip type annotations of typed elements. */
+  private <A extends Annotatable> A annotate(A target, AnnotatedElement element, boolean typed) {
+    for (java.lang.annotation.Annotation annotation : element.getDeclaredAnnotations()) {
+      if (typed && TYPE_USE.get(annotation.annotationType())) {
+        continue;
+      }
+      target.addAnnotation(annotation(annotation));
+    }
+    return target;
+  }
+
+  /** Return shared annotation converted once per call. */
+  private Annotation annotation(java.lang.annotation.Annotation annotation) {
+    Annotation shared = annotations.get(annotation);
+    if (shared == null) {
+      shared = Annotation.of(annotation);
+      shared.share();
+      Annotation present = annotations.putIfAbsent(annotation, shared);
+      if (present != null) {
+        return present;
+      }
+    }
+    return shared;
+  }
+
+  /**
+   * Return initializer of the constant field: its value if it is of primitive or string type, else
+   * the default value of its type.
+   *
+   * <p>The value is read by reflection, which runs the static initializer of the class. Non-finite
+   * floating-point values are referenced by their constant, like {@code java.lang.Double.NaN}.
+   */
+  private Listable constant(Field field) {
+    Class<?> type = field.getType();
+    if (type.isPrimitive() || type == String.class) {
+      Object value;
+      try {
+        field.setAccessible(true);
+        value = field.get(null);
+      } catch (ReflectiveOperationException | RuntimeException exception) {
+        throw new IllegalStateException("reading " + field + " failed", exception);
+      }
+      if (value instanceof Double && !Double.isFinite((Double) value)) {
+        return nonFinite(Double.class, (Double) value);
+      }
+      if (value instanceof Float && !Float.isFinite((Float) value)) {
+        return nonFinite(Float.class, (Float) value);
+      }
+      return Annotation.value(value);
+    }
+    return Annotation.value(null);
+  }
+
+  /** Declare and fill new type declaration mirroring the class. */
+  private TypeDeclaration declare(DeclarationContainer container, Class<?> type) {
+    String name = type.getSimpleName();
+    int modifiers = type.getModifiers() & Modifier.classModifiers();
+    TypeDeclaration declaration;
+    if (type.isAnnotation()) {
+      declaration = container.declareAnnotation(name);
+      modifiers &= ~(Modifier.ABSTRACT | Modifier.STATIC);
+      declareElements((AnnotationDeclaration) declaration, type);
+    } else if (type.isInterface()) {
+      declaration = container.declareInterface(name);
+      modifiers &= ~(Modifier.ABSTRACT | Modifier.STATIC);
+      declareInterface((InterfaceDeclaration) declaration, type);
+    } else if (type.isEnum()) {
+      declaration = container.declareEnum(name);
+      modifiers &= ~(Modifier.ABSTRACT | Modifier.FINAL | Modifier.STATIC);
+      declareEnum((EnumDeclaration) declaration, type);
+    } else {
+      declaration = container.declareClass(name);
+      declareClass((NormalClassDeclaration) declaration, type);
+    }
+    if (container instanceof CompilationUnit) {
+      modifiers &= ~(Modifier.PRIVATE | Modifier.PROTECTED | Modifier.STATIC);
+    }
+    declaration.addModifiers(modifiers);
+    annotate(declaration, type, false);
+    for (Class<?> member : sorted(type.getDeclaredClasses(), Class::getName)) {
+      if (!member.isSynthetic()) {
+        declare(declaration, member);
+      }
+    }
+    return declaration;
+  }
+
+  private void declareClass(NormalClassDeclaration declaration, Class<?> type) {
+    for (java.lang.reflect.TypeVariable<?> variable : type.getTypeParameters()) {
+      declaration.addTypeParameter(typeParameter(variable));
+    }
+    AnnotatedType superClass = type.getAnnotatedSuperclass();
+    if (superClass != null && superClass.getType() != Object.class) {
+      declaration.setSuperClass((ClassType) JavaType.of(superClass));
+    }
+    declareClassBody(declaration, type);
+  }
+
+  private void declareClassBody(ClassDeclaration declaration, Class<?> type) {
+    for (AnnotatedType superInterface : type.getAnnotatedInterfaces()) {
+      declaration.addInterface(JavaType.of(superInterface));
+    }
+    for (Field field : type.getDeclaredFields()) {
+      if (field.isSynthetic() || field.isEnumConstant()) {
+        continue;
+      }
+      FieldDeclaration member = declaration.declareField(type(field), field.getName());
+      member.addModifiers(field.getModifiers() & Modifier.fieldModifiers());
+      annotate(member, field, true);
+    }
+    if (!type.isEnum()) {
+      for (Constructor<?> constructor : sorted(type.getDeclaredConstructors(), Object::toString)) {
+        if (!constructor.isSynthetic()) {
+          executable(declaration.declareConstructor(), constructor);
+        }
+      }
+    }
+    for (Method method : sorted(type.getDeclaredMethods(), Object::toString)) {
+      if (method.isSynthetic() || type.isEnum() && isImplicitEnumMethod(method)) {
+        continue;
+      }
+      JavaType returnType = JavaType.of(method.getAnnotatedReturnType());
+      executable(declaration.declareMethod(returnType, method.getName()), method);
+    }
+  }
+
+  private void declareElements(AnnotationDeclaration declaration, Class<?> type) {
+    for (Field field : type.getDeclaredFields()) {
+      if (!field.isSynthetic()) {
+        Listable value = constant(field);
+        annotate(declaration.declareConstant(type(field), field.getName(), value), field, true);
+      }
+    }
+    for (Method method : sorted(type.getDeclaredMethods(), Method::getName)) {
+      if (method.isSynthetic()) {
+        continue;
+      }
+      Object defaultValue = method.getDefaultValue();
+      Listable value = defaultValue == null ? null : value(defaultValue);
+      JavaType returnType = JavaType.of(method.getAnnotatedReturnType());
+      annotate(declaration.declareElement(returnType, method.getName(), value), method, true);
+    }
+  }
+
+  private void declareEnum(EnumDeclaration declaration, Class<?> type) {
+    for (Field field : type.getDeclaredFields()) {
+      if (field.isEnumConstant()) {
+        annotate(declaration.declareConstant(field.getName()), field, false);
+      }
+    }
+    declareClassBody(declaration, type);
+  }
+
+  private void declareInterface(InterfaceDeclaration declaration, Class<?> type) {
+    for (java.lang.reflect.TypeVariable<?> variable : type.getTypeParameters()) {
+      declaration.addTypeParameter(typeParameter(variable));
+    }
+    for (AnnotatedType superInterface : type.getAnnotatedInterfaces()) {
+      declaration.addInterface(JavaType.of(superInterface));
+    }
+    for (Field field : type.getDeclaredFields()) {
+      if (!field.isSynthetic()) {
+        Listable value = constant(field);
+        annotate(declaration.declareConstant(type(field), field.getName(), value), field, true);
+      }
+    }
+    for (Method method : sorted(type.getDeclaredMethods(), Object::toString)) {
+      if (method.isSynthetic()) {
+        continue;
+      }
+      JavaType returnType = JavaType.of(method.getAnnotatedReturnType());
+      MethodDeclaration declared = declaration.declareMethod(returnType, method.getName());
+      executable(declared, method);
+      if (method.isDefault()) {
+        declared.addModifier(javax.lang.model.element.Modifier.DEFAULT);
+      }
+    }
+  }
+
+  /** Mirror modifiers, annotations, type parameters, parameters, exceptions and a stub body. */
+  private void executable(MethodDeclaration declaration, Executable executable) {
+    boolean method = executable instanceof Method;
+    int modifiers = method ? Modifier.methodModifiers() : Modifier.constructorModifiers();
+    declaration.addModifiers(executable.getModifiers() & modifiers);
+    annotate(declaration, executable, method);
+    for (java.lang.reflect.TypeVariable<?> variable : executable.getTypeParameters()) {
+      declaration.addTypeParameter(typeParameter(variable));
+    }
+    Parameter[] parameters = executable.getParameters();
+    AnnotatedType[] types = executable.getAnnotatedParameterTypes();
+    // leading parameters without a (generic) type are implicit
+    int first = parameters.length - types.length;
+    for (int i = 0; i < types.length; i++) {
+      Parameter parameter = parameters[first + i];
+      if (parameter.isImplicit() || parameter.isSynthetic()) {
+        continue;
+      }
+      if (i == 0 && first == 0 && isOuterInstance(executable, types[0])) {
+        continue;
+      }
+      MethodParameter declared = MethodParameter.of(JavaType.of(types[i]), parameter.getName());
+      declared.setFinal(Modifier.isFinal(parameter.getModifiers()));
+      declaration.addParameter(annotate(declared, parameter, true));
+    }
+    if (executable.isVarArgs()) {
+      declaration.setVarArgs(true);
+    }
+    for (AnnotatedType thrown : executable.getAnnotatedExceptionTypes()) {
+      JavaType type = JavaType.of(thrown);
+      if (type instanceof TypeVariable) {
+        declaration.addThrows((TypeVariable) type);
+      } else {
+        declaration.addThrows((ClassType) type);
+      }
+    }
+    int flags = executable.getModifiers();
+    if (!Modifier.isAbstract(flags) && !Modifier.isNative(flags)) {
+      declaration.addStatement("throw new {N}()", UnsupportedOperationException.class);
+    }
+  }
+
+  private static boolean isImplicitEnumMethod(Method method) {
+    if (!Modifier.isStatic(method.getModifiers())) {
+      return false;
+    }
+    Class<?>[] types = method.getParameterTypes();
+    String name = method.getName();
+    return name.equals("values") && types.length == 0
+        || name.equals("valueOf") && types.length == 1 && types[0] == String.class;
+  }
+
+  /** Return {@code true} if the parameter type is the enclosing instance of an inner class. */
+  private static boolean isOuterInstance(Executable executable, AnnotatedType type) {
+    Class<?> declaringClass = executable.getDeclaringClass();
+    return executable instanceof Constructor
+        && declaringClass.isMemberClass()
+        && !Modifier.isStatic(declaringClass.getModifiers())
+        && type.getType() == declaringClass.getDeclaringClass();
+  }
+
+  /** Return the name of the constant holding the non-finite value in the wrapper class. */
+  private static Name nonFinite(Class<?> wrapper, double value) {
+    if (Double.isNaN(value)) {
+      return Name.of(wrapper, "NaN");
+    }
+    return Name.of(wrapper, value > 0 ? "POSITIVE_INFINITY" : "NEGATIVE_INFINITY");
+  }
+
+  private static <T> List<T> sorted(T[] array, Function<T, String> key) {
+    List<T> list = Arrays.asList(array);
+    list.sort(Comparator.comparing(key));
+    return list;
+  }
+
+  private static JavaType type(Field field) {
+    return JavaType.of(field.getAnnotatedType());
+  }
+
+  private TypeParameter typeParameter(java.lang.reflect.TypeVariable<?> variable) {
+    TypeParameter parameter = TypeParameter.of(variable.getName());
+    for (AnnotatedType bound : variable.getAnnotatedBounds()) {
+      JavaType type = JavaType.of(bound);
+      if (type instanceof TypeVariable) {
+        parameter.setBoundTypeVariable(((TypeVariable) type).getName());
+      } else {
+        parameter.addBounds(type);
+      }
+    }
+    return annotate(parameter, variable, false);
+  }
+
+  private CompilationUnit unit(Class<?> type) {
+    CompilationUnit unit = CompilationUnit.of(Name.of(type).getPackageName());
+    declare(unit, type);
+    return unit;
+  }
+
+  /** Return listable value, nested annotations and arrays are converted element-wise. */
+  private Listable value(Object value) {
+    if (value instanceof java.lang.annotation.Annotation) {
+      return annotation((java.lang.annotation.Annotation) value);
+    }
+    if (value != null && value.getClass().isArray()) {
+      List<Listable> elements = new ArrayList<>();
+      for (int i = 0; i < Array.getLength(value); i++) {
+        elements.add(value(Array.get(value, i)));
+      }
+      return listing -> listing.add('{').add(elements, ", ").add('}');
+    }
+    return Annotation.value(value);
+  }
+}
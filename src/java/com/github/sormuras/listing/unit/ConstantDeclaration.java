@@ -14,10 +14,13 @@
 
 package com.github.sormuras.listing.unit;
 
+import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import com.github.sormuras.listing.type.JavaType;
 import java.lang.annotation.ElementType;
+import java.util.Objects;
 
 /**
  * Constant field.
@@ -38,6 +41,25 @@ public class ConstantDeclaration extends NamedMember {
     return listing;
   }
 
+  @Override
+  protected boolean equalsState(Annotated other) {
+    ConstantDeclaration that = (ConstantDeclaration) other;
+    return super.equalsState(other)
+        && Objects.equals(type, that.type)
+        && Objects.equals(initializer, that.initializer);
+  }
+
+  @Override
+  public int estimateLength() {
+    int length = estimateAnnotationsLength() + Listable.estimateLength(type);
+    return length + 1 + estimateNameLength() + 3 + Listable.estimateLength(initializer) + 1;
+  }
+
+  @Override
+  public int estimateLines() {
+    return 2 + estimateAnnotationsLines();
+  }
+
   @Override
   public ElementType getAnnotationTarget() {
     return ElementType.FIELD;
@@ -51,11 +73,31 @@ public class ConstantDeclaration extends NamedMember {
     return type;
   }
 
+  @Override
+  protected int hashState() {
+    return 31 * (31 * super.hashState() + Objects.hashCode(type)) + Objects.hashCode(initializer);
+  }
+
   public void setInitializer(Listable initializer) {
+    markMutated();
     this.initializer = initializer;
   }
 
   public void setType(JavaType type) {
+    markMutated();
     this.type = type;
   }
+
+  /** Mark this constant, its type and initializer as shared, any later change throws. */
+  @Override
+  public void share() {
+    Sharing.share(type);
+    Sharing.share(initializer);
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(initializer, type));
+  }
 }
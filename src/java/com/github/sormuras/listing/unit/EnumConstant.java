@@ -14,9 +14,12 @@
 
 package com.github.sormuras.listing.unit;
 
+import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import java.lang.annotation.ElementType;
+import java.util.Objects;
 
 /**
  * An enum constant defines an instance of the enum type.
@@ -48,6 +51,35 @@ public class EnumConstant extends NamedMember {
     return listing;
   }
 
+  @Override
+  protected boolean equalsState(Annotated other) {
+    EnumConstant that = (EnumConstant) other;
+    return super.equalsState(other)
+        && Objects.equals(arguments, that.arguments)
+        && Objects.equals(body, that.body);
+  }
+
+  @Override
+  public int estimateLength() {
+    int length = estimateAnnotationsLength() + estimateNameLength();
+    if (arguments != null) {
+      length += 2 + arguments.estimateLength();
+    }
+    if (body != null) {
+      length += body.estimateLength();
+    }
+    return length;
+  }
+
+  @Override
+  public int estimateLines() {
+    int lines = 1 + estimateAnnotationsLines();
+    if (body != null) {
+      lines += body.estimateLines();
+    }
+    return lines;
+  }
+
   @Override
   public ElementType getAnnotationTarget() {
     return ElementType.TYPE;
@@ -61,11 +93,31 @@ public class EnumConstant extends NamedMember {
     return body;
   }
 
+  @Override
+  protected int hashState() {
+    return 31 * (31 * super.hashState() + Objects.hashCode(arguments)) + Objects.hashCode(body);
+  }
+
   public void setArguments(Listable arguments) {
+    markMutated();
     this.arguments = arguments;
   }
 
   public void setBody(ClassDeclaration body) {
+    markMutated();
     this.body = body;
   }
+
+  /** Mark this constant, its arguments and body as shared, any later change throws. */
+  @Override
+  public void share() {
+    Sharing.share(arguments);
+    Sharing.share(body);
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(arguments, body));
+  }
 }
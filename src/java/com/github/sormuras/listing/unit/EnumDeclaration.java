@@ -14,9 +14,10 @@
 
 package com.github.sormuras.listing.unit;
 
+import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
-import java.util.ArrayList;
+import com.github.sormuras.listing.Mutation;
 import java.util.List;
 
 /**
@@ -26,7 +27,7 @@ import java.util.List;
  */
 public class EnumDeclaration extends ClassDeclaration {
 
-  private final List<EnumConstant> constants = new ArrayList<>();
+  private final List<EnumConstant> constants = Mutation.trackedList(getHub());
 
   @Override
   public Listing apply(Listing listing) {
@@ -81,7 +82,39 @@ public class EnumDeclaration extends ClassDeclaration {
     return constant;
   }
 
+  @Override
+  protected boolean equalsState(Annotated other) {
+    return super.equalsState(other) && constants.equals(((EnumDeclaration) other).constants);
+  }
+
+  @Override
+  public int estimateLength() {
+    return estimateTypeLength("enum") + Listable.estimateLength(constants, 2) + 1;
+  }
+
+  @Override
+  public int estimateLines() {
+    return estimateTypeLines() + Listable.estimateLines(constants);
+  }
+
   public List<EnumConstant> getConstants() {
-    return constants;
+    return guarded(constants);
+  }
+
+  @Override
+  protected int hashState() {
+    return 31 * super.hashState() + constants.hashCode();
+  }
+
+  /** Mark this declaration and its constants as shared, any later change throws. */
+  @Override
+  public void share() {
+    Sharing.shareAll(constants);
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(constants));
   }
 }
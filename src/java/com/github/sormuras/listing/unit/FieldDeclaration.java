@@ -14,10 +14,13 @@
 
 package com.github.sormuras.listing.unit;
 
+import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import com.github.sormuras.listing.type.JavaType;
 import java.lang.annotation.ElementType;
+import java.util.Objects;
 
 /**
  * The variables of a class type are introduced by field declarations.
@@ -44,6 +47,29 @@ public class FieldDeclaration extends ClassMemberDeclaration {
     return listing;
   }
 
+  @Override
+  protected boolean equalsState(Annotated other) {
+    FieldDeclaration that = (FieldDeclaration) other;
+    return super.equalsState(other)
+        && Objects.equals(type, that.type)
+        && Objects.equals(initializer, that.initializer);
+  }
+
+  @Override
+  public int estimateLength() {
+    int length = estimateAnnotationsLength() + estimateModifiersLength();
+    length += Listable.estimateLength(type) + 1 + estimateNameLength() + 1;
+    if (initializer != null) {
+      length += 3 + initializer.estimateLength();
+    }
+    return length;
+  }
+
+  @Override
+  public int estimateLines() {
+    return 2 + estimateAnnotationsLines();
+  }
+
   @Override
   public ElementType getAnnotationTarget() {
     return ElementType.FIELD;
@@ -57,11 +83,31 @@ public class FieldDeclaration extends ClassMemberDeclaration {
     return type;
   }
 
+  @Override
+  protected int hashState() {
+    return 31 * (31 * super.hashState() + Objects.hashCode(type)) + Objects.hashCode(initializer);
+  }
+
   public void setInitializer(Listable initializer) {
+    markMutated();
     this.initializer = initializer;
   }
 
   public void setType(JavaType type) {
+    markMutated();
     this.type = type;
   }
+
+  /** Mark this field, its type and initializer as shared, any later change throws. */
+  @Override
+  public void share() {
+    Sharing.share(type);
+    Sharing.share(initializer);
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(initializer, type));
+  }
 }
@@ -16,15 +16,19 @@ package com.github.sormuras.listing.unit;
 
 import static java.util.Objects.requireNonNull;
 
-import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import com.github.sormuras.listing.Name;
 import com.github.sormuras.listing.Tool;
 import java.lang.reflect.Member;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 /**
@@ -33,12 +37,51 @@ import java.util.function.Predicate;
  *
  * @see https://docs.oracle.com/javase/specs/jls/se8/html/jls-7.html#jls-7.5
  */
-public class ImportDeclarations implements Listable, Predicate<Name> {
+public class ImportDeclarations implements Mutation.Source, Predicate<Name> {
 
-  private Set<Name> onDemandStaticImports = new TreeSet<>();
-  private Set<Name> onDemandTypeImports = new TreeSet<>();
-  private Set<Name> singleStaticImports = new TreeSet<>();
-  private Set<Name> singleTypeImports = new TreeSet<>();
+  /** Results of {@link #test(Name)} valid for one mutation stamp. */
+  private static final class Memo {
+    final Map<Name, Boolean> results = new ConcurrentHashMap<>();
+    final long stamp;
+
+    Memo(long stamp) {
+      this.stamp = stamp;
+    }
+  }
+
+  /** Import names in declaration order, valid for one mutation stamp. */
+  private static final class Order {
+    final Name[] onDemandStaticImports;
+    final Name[] onDemandTypeImports;
+    final Name[] singleStaticImports;
+    final Name[] singleTypeImports;
+    final long stamp;
+
+    Order(ImportDeclarations imports) {
+      this.onDemandStaticImports = sorted(imports.onDemandStaticImports);
+      this.onDemandTypeImports = sorted(imports.onDemandTypeImports);
+      this.singleStaticImports = sorted(imports.singleStaticImports);
+      this.singleTypeImports = sorted(imports.singleTypeImports);
+      this.stamp = imports.mutationStamp;
+    }
+  }
+
+  /** Return names sorted by their canonical names. */
+  private static Name[] sorted(Set<Name> names) {
+    Name[] array = names.toArray(new Name[names.size()]);
+    Arrays.sort(array);
+    return array;
+  }
+
+  private final Mutation.Hub hub = new Mutation.Hub();
+  private transient volatile Memo memo;
+  private long mutationStamp = 0;
+  private Set<Name> onDemandStaticImports = new HashSet<>();
+  private Set<Name> onDemandTypeImports = new HashSet<>();
+  private transient volatile Order order;
+  private boolean shared = false;
+  private Set<Name> singleStaticImports = new HashSet<>();
+  private Set<Name> singleTypeImports = new HashSet<>();
 
   /**
    * Single static (enum) import declaration.
@@ -46,6 +89,7 @@ public class ImportDeclarations implements Listable, Predicate<Name> {
    * <li>https://docs.oracle.com/javase/specs/jls/se8/html/jls-7.html#jls-7.5.3
    */
   public ImportDeclarations addSingleStaticImport(Enum<?> constant) {
+    markMutated();
     singleStaticImports.add(Name.of(requireNonNull(constant, "constant")));
     return this;
   }
@@ -56,6 +100,7 @@ public class ImportDeclarations implements Listable, Predicate<Name> {
    * <li>https://docs.oracle.com/javase/specs/jls/se8/html/jls-7.html#jls-7.5.3
    */
   public ImportDeclarations addSingleStaticImport(Name name) {
+    markMutated();
     singleStaticImports.add(requireNonNull(name, "name"));
     return this;
   }
@@ -67,6 +112,7 @@ public class ImportDeclarations implements Listable, Predicate<Name> {
    */
   public ImportDeclarations addSingleStaticImport(Member member) {
     Tool.assume(Modifier.isStatic(member.getModifiers()), "member %s must be static", member);
+    markMutated();
     singleStaticImports.add(Name.of(member));
     return this;
   }
@@ -88,6 +134,7 @@ public class ImportDeclarations implements Listable, Predicate<Name> {
    * <li>https://docs.oracle.com/javase/specs/jls/se8/html/jls-7.html#jls-7.5.1
    */
   public ImportDeclarations addSingleTypeImport(Name typeName) {
+    markMutated();
     singleTypeImports.add(typeName);
     return this;
   }
@@ -99,6 +146,7 @@ public class ImportDeclarations implements Listable, Predicate<Name> {
    * <li>https://docs.oracle.com/javase/specs/jls/se8/html/jls-7.html#jls-7.5.4
    */
   public ImportDeclarations addStaticImportOnDemand(Name typeName) {
+    markMutated();
     onDemandStaticImports.add(typeName);
     return this;
   }
@@ -110,6 +158,7 @@ public class ImportDeclarations implements Listable, Predicate<Name> {
    * <li>https://docs.oracle.com/javase/specs/jls/se8/html/jls-7.html#jls-7.5.2
    */
   public ImportDeclarations addTypeImportOnDemand(Name packageOrTypeName) {
+    markMutated();
     onDemandTypeImports.add(packageOrTypeName);
     return this;
   }
@@ -119,28 +168,75 @@ public class ImportDeclarations implements Listable, Predicate<Name> {
     if (isEmpty()) {
       return listing;
     }
+    Order order = getOrder();
     listing.newline();
-    if (!onDemandStaticImports.isEmpty()) {
-      onDemandStaticImports.forEach(
-          n -> listing.add("import static ").add(n.getCanonicalName()).add(".*;").newline());
+    for (Name name : order.onDemandStaticImports) {
+      listing.add("import static ").add(name.getCanonicalName()).add(".*;").newline();
     }
-    if (!singleStaticImports.isEmpty()) {
-      singleStaticImports.forEach(
-          n -> listing.add("import static ").add(n.getCanonicalName()).add(';').newline());
+    for (Name name : order.singleStaticImports) {
+      listing.add("import static ").add(name.getCanonicalName()).add(';').newline();
     }
     listing.newline();
-    if (!onDemandTypeImports.isEmpty()) {
-      onDemandTypeImports.forEach(
-          n -> listing.add("import ").add(n.getCanonicalName()).add(".*;").newline());
+    for (Name name : order.onDemandTypeImports) {
+      listing.add("import ").add(name.getCanonicalName()).add(".*;").newline();
     }
-    if (!singleTypeImports.isEmpty()) {
-      singleTypeImports.forEach(
-          n -> listing.add("import ").add(n.getCanonicalName()).add(';').newline());
+    for (Name name : order.singleTypeImports) {
+      listing.add("import ").add(name.getCanonicalName()).add(';').newline();
     }
     listing.trim();
     return listing;
   }
 
+  /** Return new import declarations holding all names of this instance and the type names. */
+  ImportDeclarations copy(Collection<Name> additionalSingleTypeImports) {
+    ImportDeclarations copy = new ImportDeclarations();
+    copy.onDemandStaticImports.addAll(onDemandStaticImports);
+    copy.onDemandTypeImports.addAll(onDemandTypeImports);
+    copy.singleStaticImports.addAll(singleStaticImports);
+    copy.singleTypeImports.addAll(singleTypeImports);
+    copy.singleTypeImports.addAll(additionalSingleTypeImports);
+    copy.mutationStamp = mutationStamp;
+    return copy;
+  }
+
+  @Override
+  public int estimateLength() {
+    int length = 0;
+    for (Name name : onDemandStaticImports) {
+      length += 17 + name.estimateLength();
+    }
+    for (Name name : singleStaticImports) {
+      length += 15 + name.estimateLength();
+    }
+    for (Name name : onDemandTypeImports) {
+      length += 10 + name.estimateLength();
+    }
+    for (Name name : singleTypeImports) {
+      length += 8 + name.estimateLength();
+    }
+    return length;
+  }
+
+  @Override
+  public int estimateLines() {
+    if (isEmpty()) {
+      return 0;
+    }
+    int lines = onDemandStaticImports.size() + singleStaticImports.size();
+    return 2 + lines + onDemandTypeImports.size() + singleTypeImports.size();
+  }
+
+  /** Return the hub notified whenever an import is added. */
+  @Override
+  public Mutation.Hub getHub() {
+    return hub;
+  }
+
+  @Override
+  public long getMutationStamp() {
+    return mutationStamp;
+  }
+
   @Override
   public boolean isEmpty() {
     return singleTypeImports.isEmpty()
@@ -149,19 +245,69 @@ public class ImportDeclarations implements Listable, Predicate<Name> {
         && onDemandStaticImports.isEmpty();
   }
 
+  /** Return {@code true} if these import declarations are shared and therefore unmodifiable. */
+  public boolean isShared() {
+    return shared;
+  }
+
+  /** Mark these import declarations as shared, any later attempt to add an import throws. */
+  public void share() {
+    shared = true;
+    hub.freeze();
+  }
+
+  /**
+   * Return {@code true} if the name is imported by a single or an on-demand import declaration.
+   *
+   * <p>Names are looked up by identity in hash sets. With on-demand imports present, results are
+   * memoized until the next mutation, i.e. for at least one render.
+   */
   @Override
   public boolean test(Name name) {
     // simple 1:1 match with a single (static) import
     if (singleTypeImports.contains(name) || singleStaticImports.contains(name)) {
       return true;
     }
-    // on demand test...
+    if (onDemandStaticImports.isEmpty() && onDemandTypeImports.isEmpty()) {
+      return false;
+    }
+    Memo memo = this.memo;
+    if (memo == null || memo.stamp != mutationStamp) {
+      memo = new Memo(mutationStamp);
+      this.memo = memo;
+    }
+    Boolean result = memo.results.get(name);
+    if (result == null) {
+      result = testOnDemand(name);
+      memo.results.put(name, result);
+    }
+    return result;
+  }
+
+  /** Return names sorted once per mutation stamp, rendering again does not sort again. */
+  private Order getOrder() {
+    Order order = this.order;
+    if (order == null || order.stamp != mutationStamp) {
+      order = new Order(this);
+      this.order = order;
+    }
+    return order;
+  }
+
+  /** Record a change of the import sets, throws if these import declarations are shared. */
+  private void markMutated() {
+    if (shared) {
+      throw new UnsupportedOperationException("shared imports are unmodifiable");
+    }
+    mutationStamp = hub.changed();
+  }
+
+  /** Test the enclosing name against the on-demand imports. */
+  private boolean testOnDemand(Name name) {
     Optional<Name> enclosing = name.getEnclosing();
     if (enclosing.isPresent()) {
       name = enclosing.get();
-      if (onDemandStaticImports.contains(name) || onDemandTypeImports.contains(name)) {
-        return true;
-      }
+      return onDemandStaticImports.contains(name) || onDemandTypeImports.contains(name);
     }
     return false;
   }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2016 Christian Stein
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.github.sormuras.listing.unit;
+
+import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Name;
+import java.lang.annotation.ElementType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Imports of a compilation unit resolved from the names referenced by its type declarations.
+ *
+ * <p>All declarations are rendered once with a predicate recording every tested name. Each simple
+ * name is then granted to at most one referenced type: a type declared in the unit, a type already
+ * imported by the unit, or else the most often referenced one. Granted types of {@code java.lang}
+ * and of the unit's own package need no import declaration, all others get a single-type import.
+ * Every other name is rendered qualified.
+ *
+ * @see CompilationUnit#setAutoImport(boolean)
+ */
+final class ImportResolution implements Predicate<Name> {
+
+  /** Collect names referenced by the unit and resolve imports. */
+  static ImportResolution resolve(CompilationUnit unit) {
+    long stamp = unit.getMutationStamp();
+    Map<Name, Integer> counts = new ConcurrentHashMap<>();
+    Predicate<Name> collector =
+        name -> {
+          counts.merge(name, 1, Integer::sum);
+          return false;
+        };
+    Listing listing = Listing.builder().setImported(collector).setRenderCacheEnabled(false).build();
+    unit.getDeclarations().forEach(listing::add);
+    return new ImportResolution(stamp, unit, counts);
+  }
+
+  private static void declare(Map<String, Name> granted, Set<String> blocked, Name name) {
+    Name other = granted.putIfAbsent(name.getLastSimpleName(), name);
+    if (other != null && !other.equals(name)) {
+      blocked.add(name.getLastSimpleName());
+    }
+  }
+
+  private static void declare(
+      Map<String, Name> granted, Set<String> blocked, Iterable<TypeDeclaration> declarations) {
+    for (TypeDeclaration declaration : declarations) {
+      declare(granted, blocked, declaration.toName());
+      declare(granted, blocked, declaration.getDeclarations());
+    }
+  }
+
+  private static boolean isMember(Name name) {
+    ElementType target = name.getTarget().orElse(ElementType.TYPE);
+    return target == ElementType.FIELD
+        || target == ElementType.METHOD
+        || target == ElementType.CONSTRUCTOR;
+  }
+
+  private final ImportDeclarations declarations;
+  private final Set<Name> implicit = new HashSet<>();
+  private volatile long stamp;
+
+  private ImportResolution(long stamp, CompilationUnit unit, Map<Name, Integer> counts) {
+    this.stamp = stamp;
+    ImportDeclarations explicit = unit.getImportDeclarations();
+    Map<String, Name> granted = new HashMap<>();
+    Set<String> blocked = new HashSet<>();
+    declare(granted, blocked, unit.getDeclarations());
+    for (Name name : counts.keySet()) {
+      if (name.getPackageName().isEmpty() || explicit.test(name)) {
+        declare(granted, blocked, name);
+      }
+    }
+    Set<String> fixed = new HashSet<>(granted.keySet());
+    for (Map.Entry<Name, Integer> entry : counts.entrySet()) {
+      Name name = entry.getKey();
+      String simpleName = name.getLastSimpleName();
+      if (name.getSimpleNames().isEmpty() || isMember(name) || fixed.contains(simpleName)) {
+        continue;
+      }
+      Name other = granted.get(simpleName);
+      if (other == null) {
+        granted.put(simpleName, name);
+        continue;
+      }
+      int delta = entry.getValue() - counts.get(other);
+      if (delta > 0 || delta == 0 && name.compareTo(other) < 0) {
+        granted.put(simpleName, name);
+      }
+    }
+    String packageName = unit.getPackageName();
+    List<Name> imports = new ArrayList<>();
+    for (Name name : granted.values()) {
+      if (blocked.contains(name.getLastSimpleName())
+          || !counts.containsKey(name)
+          || explicit.test(name)) {
+        continue;
+      }
+      boolean topLevel = name.getSimpleNames().size() == 1;
+      if (topLevel && (name.getPackageName().isEmpty() || name.isJavaLangPackage())) {
+        implicit.add(name);
+        continue;
+      }
+      if (topLevel && name.getPackageName().equals(packageName)) {
+        implicit.add(name);
+        continue;
+      }
+      if (!name.getPackageName().isEmpty()) {
+        imports.add(name);
+      }
+    }
+    this.declarations = explicit.copy(imports);
+  }
+
+  /** Return explicit and resolved single-type import declarations. */
+  ImportDeclarations getDeclarations() {
+    return declarations;
+  }
+
+  long getStamp() {
+    return stamp;
+  }
+
+  /** Return {@code true} if the other resolution renders every name like this one. */
+  boolean resolvesLike(ImportResolution other) {
+    return implicit.equals(other.implicit) && declarations.list().equals(other.declarations.list());
+  }
+
+  /** Mark this resolution as valid for the unit at the given stamp, too. */
+  void setStamp(long stamp) {
+    this.stamp = stamp;
+  }
+
+  @Override
+  public boolean test(Name name) {
+    return implicit.contains(name) || declarations.test(name);
+  }
+}
@@ -37,6 +37,11 @@ public class Initializer extends Block {
     return super.apply(listing);
   }
 
+  @Override
+  public int estimateLength() {
+    return super.estimateLength() + (isStatic ? 7 : 0);
+  }
+
   public ClassDeclaration getEnclosing() {
     return enclosing;
   }
@@ -46,6 +51,7 @@ public class Initializer extends Block {
   }
 
   public void setStatic(boolean isStatic) {
+    markMutated();
     this.isStatic = isStatic;
   }
 
@@ -14,12 +14,13 @@
 
 package com.github.sormuras.listing.unit;
 
+import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Annotation;
 import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import com.github.sormuras.listing.type.ClassType;
 import com.github.sormuras.listing.type.JavaType;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -32,10 +33,10 @@ import java.util.List;
  */
 public class InterfaceDeclaration extends TypeDeclaration {
 
-  private final List<ConstantDeclaration> constants = new ArrayList<>();
-  private final List<ClassType> interfaces = new ArrayList<>();
-  private final List<MethodDeclaration> methods = new ArrayList<>();
-  private final List<TypeParameter> typeParameters = new ArrayList<>();
+  private final List<ConstantDeclaration> constants = Mutation.trackedList(getHub());
+  private final List<ClassType> interfaces = Mutation.trackedList(getHub());
+  private final List<MethodDeclaration> methods = Mutation.trackedList(getHub());
+  private final List<TypeParameter> typeParameters = Mutation.trackedList(getHub());
 
   public void addInterface(JavaType interfaceType) {
     getInterfaces().add((ClassType) interfaceType);
@@ -105,19 +106,78 @@ public class InterfaceDeclaration extends TypeDeclaration {
     return declaration;
   }
 
+  @Override
+  protected boolean equalsState(Annotated other) {
+    InterfaceDeclaration that = (InterfaceDeclaration) other;
+    return super.equalsState(other)
+        && constants.equals(that.constants)
+        && interfaces.equals(that.interfaces)
+        && methods.equals(that.methods)
+        && typeParameters.equals(that.typeParameters);
+  }
+
+  @Override
+  public int estimateLength() {
+    int length = estimateTypeLength("interface");
+    if (!typeParameters.isEmpty()) {
+      length += 2 + Listable.estimateLength(typeParameters, 2);
+    }
+    if (!interfaces.isEmpty()) {
+      length += 9 + Listable.estimateLength(interfaces, 2);
+    }
+    length += Listable.estimateLength(constants, 0);
+    length += Listable.estimateLength(methods, 0);
+    return length;
+  }
+
+  @Override
+  public int estimateLines() {
+    int lines = estimateTypeLines();
+    return lines + Listable.estimateLines(constants) + Listable.estimateLines(methods);
+  }
+
   public List<ConstantDeclaration> getConstants() {
-    return constants;
+    return guarded(constants);
   }
 
   public List<ClassType> getInterfaces() {
-    return interfaces;
+    return guarded(interfaces);
   }
 
   public List<MethodDeclaration> getMethods() {
-    return methods;
+    return guarded(methods);
   }
 
   public List<TypeParameter> getTypeParameters() {
-    return typeParameters;
+    return guarded(typeParameters);
+  }
+
+  @Override
+  protected int hashState() {
+    int hash = 31 * super.hashState() + constants.hashCode();
+    hash = 31 * hash + interfaces.hashCode();
+    hash = 31 * hash + methods.hashCode();
+    return 31 * hash + typeParameters.hashCode();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return super.isEmpty() && constants.isEmpty() && methods.isEmpty();
+  }
+
+  /** Mark this declaration and all its child nodes as shared, any later change throws. */
+  @Override
+  public void share() {
+    Sharing.shareAll(constants);
+    Sharing.shareAll(interfaces);
+    Sharing.shareAll(methods);
+    Sharing.shareAll(typeParameters);
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    long stamp = Mutation.stamp(constants, interfaces, methods, typeParameters);
+    return Math.max(super.stampState(), stamp);
   }
 }
@@ -14,16 +14,21 @@
 
 package com.github.sormuras.listing.unit;
 
+import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
+import com.github.sormuras.listing.type.ArrayType;
 import com.github.sormuras.listing.type.ClassType;
 import com.github.sormuras.listing.type.JavaType;
 import com.github.sormuras.listing.type.ReferenceType;
 import com.github.sormuras.listing.type.TypeVariable;
 import java.lang.annotation.ElementType;
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Method declaration.
@@ -34,11 +39,11 @@ import java.util.Optional;
 public class MethodDeclaration extends ClassMemberDeclaration {
 
   private Block body = null;
-  private List<Listable> bodyStatements = new ArrayList<>();
-  private List<MethodParameter> parameters = new ArrayList<>();
+  private List<Listable> bodyStatements = Mutation.trackedList(getHub());
+  private List<MethodParameter> parameters = Mutation.trackedList(getHub());
   private JavaType returnType = JavaType.of(void.class);
-  private List<ReferenceType> throwables = new ArrayList<>();
-  private List<TypeParameter> typeParameters = new ArrayList<>();
+  private List<ReferenceType> throwables = Mutation.trackedList(getHub());
+  private List<TypeParameter> typeParameters = Mutation.trackedList(getHub());
 
   public void addParameter(Class<?> type, String name) {
     addParameter(MethodParameter.of(type, name));
@@ -50,11 +55,11 @@ public class MethodDeclaration extends ClassMemberDeclaration {
   }
 
   public void addStatement(String line) {
-    bodyStatements.add(l -> l.add(line).add(';'));
+    guarded(bodyStatements).add(l -> l.add(line).add(';'));
   }
 
   public void addStatement(String source, Object... args) {
-    bodyStatements.add(l -> l.add(source, args).add(';'));
+    guarded(bodyStatements).add(l -> l.add(source, args).add(';'));
   }
 
   public void addThrows(Class<?> type) {
@@ -78,9 +83,9 @@ public class MethodDeclaration extends ClassMemberDeclaration {
     listing.newline();
     listing.add(toAnnotationsListable());
     listing.add(toModifiersListable());
-    if (!getTypeParameters().isEmpty()) {
+    if (!typeParameters.isEmpty()) {
       listing.add('<');
-      listing.add(getTypeParameters(), ", ");
+      listing.add(typeParameters, ", ");
       listing.add("> ");
     }
     if (isConstructor()) {
@@ -94,12 +99,14 @@ public class MethodDeclaration extends ClassMemberDeclaration {
       listing.add(' ');
       listing.add(getName());
     }
+    // columns taken by the opening brace or the semicolon at the end of the header
+    int end = body != null || !bodyStatements.isEmpty() ? 2 : 1;
     listing.add('(');
-    listing.add(getParameters(), ", ");
+    listing.add(parameters, ", ", throwables.isEmpty() ? 1 + end : 1);
     listing.add(')');
-    if (!getThrows().isEmpty()) {
-      listing.add(" throws ");
-      listing.add(getThrows(), ", ");
+    if (!throwables.isEmpty()) {
+      listing.add(' ');
+      listing.addWrapped(l -> l.add("throws ").add(throwables, ", "), end);
     }
     if (getBody().isPresent()) {
       listing.add(' ');
@@ -117,6 +124,48 @@ public class MethodDeclaration extends ClassMemberDeclaration {
     return listing;
   }
 
+  @Override
+  protected boolean equalsState(Annotated other) {
+    MethodDeclaration that = (MethodDeclaration) other;
+    return super.equalsState(other)
+        && Objects.equals(body, that.body)
+        && bodyStatements.equals(that.bodyStatements)
+        && parameters.equals(that.parameters)
+        && Objects.equals(returnType, that.returnType)
+        && throwables.equals(that.throwables)
+        && typeParameters.equals(that.typeParameters);
+  }
+
+  @Override
+  public int estimateLength() {
+    int length = estimateAnnotationsLength() + estimateModifiersLength();
+    if (!typeParameters.isEmpty()) {
+      length += 3 + Listable.estimateLength(typeParameters, 2);
+    }
+    length += Listable.estimateLength(returnType) + 1 + estimateNameLength();
+    length += 2 + Listable.estimateLength(parameters, 2);
+    if (!throwables.isEmpty()) {
+      length += 8 + Listable.estimateLength(throwables, 2);
+    }
+    if (body != null) {
+      return length + 1 + body.estimateLength();
+    }
+    // each statement is terminated by a ';'
+    return length + 3 + Listable.estimateLength(bodyStatements, 0) + bodyStatements.size();
+  }
+
+  @Override
+  public int estimateLines() {
+    int lines = 2 + estimateAnnotationsLines();
+    if (body != null) {
+      return lines + body.estimateLines();
+    }
+    if (bodyStatements.isEmpty()) {
+      return lines;
+    }
+    return lines + 1 + Listable.estimateLines(bodyStatements);
+  }
+
   @Override
   public ElementType getAnnotationTarget() {
     return ElementType.METHOD;
@@ -127,7 +176,7 @@ public class MethodDeclaration extends ClassMemberDeclaration {
   }
 
   public List<MethodParameter> getParameters() {
-    return parameters;
+    return guarded(parameters);
   }
 
   public JavaType getReturnType() {
@@ -135,11 +184,48 @@ public class MethodDeclaration extends ClassMemberDeclaration {
   }
 
   public List<ReferenceType> getThrows() {
-    return throwables;
+    return guarded(throwables);
   }
 
   public List<TypeParameter> getTypeParameters() {
-    return typeParameters;
+    return guarded(typeParameters);
+  }
+
+  /**
+   * Return {@code true} if the other method has the same name and the same erased parameter types.
+   *
+   * <p>Type arguments and annotations are ignored, type variables are erased to their leftmost
+   * bound. A method not enclosed by a type resolves class type variables in the other's type.
+   *
+   * @see https://docs.oracle.com/javase/specs/jls/se8/html/jls-8.html#jls-8.4.2
+   */
+  boolean hasSignatureOf(MethodDeclaration other) {
+    if (!Objects.equals(getName(), other.getName())) {
+      return false;
+    }
+    if (parameters.size() != other.parameters.size()) {
+      return false;
+    }
+    TypeDeclaration context = getEnclosingDeclaration();
+    TypeDeclaration otherContext = other.getEnclosingDeclaration();
+    for (int index = 0; index < parameters.size(); index++) {
+      String erasure = erasure(parameters.get(index).getType(), otherContext);
+      String otherErasure = other.erasure(other.parameters.get(index).getType(), context);
+      if (!erasure.equals(otherErasure)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  protected int hashState() {
+    int hash = 31 * super.hashState() + Objects.hashCode(body);
+    hash = 31 * hash + bodyStatements.hashCode();
+    hash = 31 * hash + parameters.hashCode();
+    hash = 31 * hash + Objects.hashCode(returnType);
+    hash = 31 * hash + throwables.hashCode();
+    return 31 * hash + typeParameters.hashCode();
   }
 
   public boolean isConstructor() {
@@ -147,17 +233,19 @@ public class MethodDeclaration extends ClassMemberDeclaration {
   }
 
   public boolean isVarArgs() {
-    if (getParameters().isEmpty()) {
+    if (parameters.isEmpty()) {
       return false;
     }
-    return getParameters().get(getParameters().size() - 1).isVariable();
+    return parameters.get(parameters.size() - 1).isVariable();
   }
 
   public void setBody(Block body) {
+    markMutated();
     this.body = body;
   }
 
   public void setReturnType(JavaType type) {
+    markMutated();
     this.returnType = type;
   }
 
@@ -167,4 +255,78 @@ public class MethodDeclaration extends ClassMemberDeclaration {
     }
     getParameters().get(getParameters().size() - 1).setVariable(variable);
   }
+
+  /** Mark this method and all its child nodes as shared, any later change throws. */
+  @Override
+  public void share() {
+    Sharing.share(body);
+    Sharing.shareAll(bodyStatements);
+    Sharing.shareAll(parameters);
+    Sharing.share(returnType);
+    Sharing.shareAll(throwables);
+    Sharing.shareAll(typeParameters);
+    super.share();
+  }
+
+  /** Return highest stamp of this method, including the enclosing type's name for constructors. */
+  @Override
+  protected long stampState() {
+    long stamp = Mutation.stamp(body, bodyStatements, parameters, returnType, throwables);
+    stamp = Math.max(stamp, Mutation.stamp(typeParameters));
+    if (isConstructor() && getEnclosingDeclaration() != null) {
+      stamp = Math.max(stamp, getEnclosingDeclaration().getNameStamp());
+    }
+    return Math.max(super.stampState(), stamp);
+  }
+
+  /** Return the leftmost bound of the type variable declared by this method or a type. */
+  private JavaType bound(String name, TypeDeclaration fallback) {
+    TypeParameter parameter = find(typeParameters, name);
+    TypeDeclaration type = getEnclosingDeclaration() == null ? fallback : getEnclosingDeclaration();
+    for (; parameter == null && type != null; type = type.getEnclosingDeclaration()) {
+      if (type instanceof NormalClassDeclaration) {
+        parameter = find(((NormalClassDeclaration) type).getTypeParameters(), name);
+      }
+      if (type instanceof InterfaceDeclaration) {
+        parameter = find(((InterfaceDeclaration) type).getTypeParameters(), name);
+      }
+    }
+    if (parameter == null) {
+      return JavaType.of(Object.class);
+    }
+    if (parameter.getBoundTypeVariable().isPresent()) {
+      return parameter.getBoundTypeVariable().get();
+    }
+    if (parameter.getBounds().isEmpty()) {
+      return JavaType.of(Object.class);
+    }
+    return parameter.getBounds().get(0);
+  }
+
+  private static TypeParameter find(List<TypeParameter> typeParameters, String name) {
+    for (TypeParameter typeParameter : typeParameters) {
+      if (typeParameter.getName().equals(name)) {
+        return typeParameter;
+      }
+    }
+    return null;
+  }
+
+  /** Return the binary name of the erasure, with one {@code []} per array dimension. */
+  private String erasure(JavaType type, TypeDeclaration fallback) {
+    if (type instanceof ArrayType) {
+      ArrayType array = (ArrayType) type;
+      StringBuilder builder = new StringBuilder(erasure(array.getComponentType(), fallback));
+      array.getDimensions().forEach(dimension -> builder.append("[]"));
+      return builder.toString();
+    }
+    Set<String> visited = new HashSet<>();
+    while (type instanceof TypeVariable && visited.add(((TypeVariable) type).getName())) {
+      type = bound(((TypeVariable) type).getName(), fallback);
+    }
+    if (type instanceof TypeVariable) {
+      return "java.lang.Object";
+    }
+    return type.toClassName();
+  }
 }
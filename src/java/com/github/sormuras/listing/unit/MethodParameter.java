@@ -17,9 +17,11 @@ package com.github.sormuras.listing.unit;
 import com.github.sormuras.listing.Annotated;
 import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import com.github.sormuras.listing.type.ArrayType;
 import com.github.sormuras.listing.type.JavaType;
 import java.lang.annotation.ElementType;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -66,6 +68,28 @@ public class MethodParameter extends Annotated {
     return listing;
   }
 
+  @Override
+  protected boolean equalsState(Annotated other) {
+    MethodParameter that = (MethodParameter) other;
+    return finalModifier == that.finalModifier
+        && variable == that.variable
+        && Objects.equals(name, that.name)
+        && Objects.equals(type, that.type);
+  }
+
+  @Override
+  public int estimateLength() {
+    int length = estimateAnnotationsLength() + Listable.estimateLength(type) + 1;
+    length += name == null ? 0 : name.length();
+    if (finalModifier) {
+      length += 6;
+    }
+    if (variable) {
+      length += 1;
+    }
+    return length;
+  }
+
   @Override
   public ElementType getAnnotationTarget() {
     return ElementType.PARAMETER;
@@ -83,6 +107,12 @@ public class MethodParameter extends Annotated {
     return type;
   }
 
+  @Override
+  protected int hashState() {
+    int hash = 31 * Objects.hashCode(name) + Objects.hashCode(type);
+    return 31 * hash + (finalModifier ? 2 : 0) + (variable ? 1 : 0);
+  }
+
   public boolean isFinal() {
     return finalModifier;
   }
@@ -92,6 +122,7 @@ public class MethodParameter extends Annotated {
   }
 
   public MethodParameter setFinal(boolean finalModifier) {
+    markMutated();
     this.finalModifier = finalModifier;
     return this;
   }
@@ -102,11 +133,13 @@ public class MethodParameter extends Annotated {
   }
 
   public MethodParameter setName(String name) {
+    markMutated();
     this.name = name;
     return this;
   }
 
   public MethodParameter setType(JavaType type) {
+    markMutated();
     this.type = type;
     return this;
   }
@@ -115,7 +148,20 @@ public class MethodParameter extends Annotated {
     if (variable && !(getType() instanceof ArrayType)) {
       throw new IllegalStateException("array type expected, got: " + getType());
     }
+    markMutated();
     this.variable = variable;
     return this;
   }
+
+  /** Mark this parameter and its type as shared, any later change throws. */
+  @Override
+  public void share() {
+    Sharing.share(type);
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(type));
+  }
 }
@@ -1,18 +1,49 @@
 package com.github.sormuras.listing.unit;
 
 import com.github.sormuras.listing.Annotated;
+import com.github.sormuras.listing.Mutation;
+import com.github.sormuras.listing.Retainable;
+import com.github.sormuras.listing.RetainedRender;
+import java.util.Objects;
 
-/** Named, annotatable and encloseable member base class. */
-public abstract class NamedMember extends Annotated {
+/**
+ * Named, annotatable and encloseable member base class.
+ *
+ * <p>Members render complete lines, they are reused by a {@link RetainedRender} while unchanged.
+ */
+public abstract class NamedMember extends Annotated implements Retainable {
 
   private CompilationUnit compilationUnit = null;
   private TypeDeclaration enclosingDeclaration = null;
   private String name;
+  private final Mutation.Hub nameHub = new Mutation.Hub();
+  private long nameStamp = 0;
+
+  /** Copy own state of the base member into this new member, child nodes are not copied. */
+  void copyFrom(NamedMember base) {
+    if (base.isAnnotated()) {
+      addAnnotations(base.getAnnotations());
+    }
+    compilationUnit = base.compilationUnit;
+    enclosingDeclaration = base.enclosingDeclaration;
+    name = base.name;
+    nameStamp = base.nameStamp;
+  }
+
+  @Override
+  protected boolean equalsState(Annotated other) {
+    return Objects.equals(name, ((NamedMember) other).name);
+  }
 
   public CompilationUnit getCompilationUnit() {
     return compilationUnit;
   }
 
+  /** Return length of the name, zero if no name is set. */
+  int estimateNameLength() {
+    return name == null ? 0 : name.length();
+  }
+
   public TypeDeclaration getEnclosingDeclaration() {
     return enclosingDeclaration;
   }
@@ -21,15 +52,31 @@ public abstract class NamedMember extends Annotated {
     return name;
   }
 
+  /** Return the mutation stamp of the latest name change, a stamp computed now depends on it. */
+  long getNameStamp() {
+    return Mutation.read(nameHub, nameStamp);
+  }
+
+  @Override
+  protected int hashState() {
+    return Objects.hashCode(name);
+  }
+
   public void setCompilationUnit(CompilationUnit unit) {
+    if (isShared()) {
+      throw new UnsupportedOperationException("shared node is unmodifiable: " + this);
+    }
     this.compilationUnit = unit;
   }
 
   public void setEnclosingDeclaration(TypeDeclaration enclosingType) {
+    markMutated();
     this.enclosingDeclaration = enclosingType;
   }
 
   public void setName(String name) {
+    markMutated();
     this.name = name;
+    this.nameStamp = nameHub.changed();
   }
 }
@@ -14,11 +14,14 @@
 
 package com.github.sormuras.listing.unit;
 
+import com.github.sormuras.listing.Annotated;
+import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import com.github.sormuras.listing.type.ClassType;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Normal class declaration.
@@ -65,15 +68,46 @@ public class NormalClassDeclaration extends ClassDeclaration {
     return listing;
   }
 
+  @Override
+  protected boolean equalsState(Annotated other) {
+    NormalClassDeclaration that = (NormalClassDeclaration) other;
+    return super.equalsState(other)
+        && Objects.equals(superClass, that.superClass)
+        && typeParameters.equals(that.typeParameters);
+  }
+
+  @Override
+  public int estimateLength() {
+    int length = estimateTypeLength("class");
+    if (!isTypeParametersEmpty()) {
+      length += 2 + Listable.estimateLength(typeParameters, 2);
+    }
+    if (superClass != null) {
+      length += 9 + superClass.estimateLength();
+    }
+    return length;
+  }
+
+  @Override
+  public int estimateLines() {
+    return estimateTypeLines();
+  }
+
   public ClassType getSuperClass() {
     return superClass;
   }
 
   public List<TypeParameter> getTypeParameters() {
-    if (typeParameters == Collections.EMPTY_LIST) {
-      typeParameters = new ArrayList<>();
+    if (typeParameters == Collections.EMPTY_LIST && !isShared()) {
+      typeParameters = Mutation.trackedList(getHub());
     }
-    return typeParameters;
+    return guarded(typeParameters);
+  }
+
+  @Override
+  protected int hashState() {
+    int hash = 31 * super.hashState() + Objects.hashCode(superClass);
+    return 31 * hash + typeParameters.hashCode();
   }
 
   public boolean isTypeParametersEmpty() {
@@ -81,7 +115,70 @@ public class NormalClassDeclaration extends ClassDeclaration {
   }
 
   public ClassDeclaration setSuperClass(ClassType superClass) {
+    markMutated();
     this.superClass = superClass;
     return this;
   }
+
+  /** Mark this declaration and all its child nodes as shared, any later change throws. */
+  @Override
+  public void share() {
+    Sharing.share(superClass);
+    Sharing.shareAll(typeParameters);
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(superClass, typeParameters));
+  }
+
+  /**
+   * Return a shared variant of this declaration with the field replacing the field of the same
+   * name, or added as the last class body element.
+   *
+   * <p>This declaration is shared first. The variant references all other child nodes of this
+   * declaration, so deriving it costs only a copy of the class body element list.
+   */
+  public NormalClassDeclaration withField(FieldDeclaration field) {
+    NormalClassDeclaration variant = derive();
+    variant.putClassBodyElement(
+        field,
+        element ->
+            element instanceof FieldDeclaration
+                && field.getName().equals(((FieldDeclaration) element).getName()));
+    variant.share();
+    return variant;
+  }
+
+  /**
+   * Return a shared variant of this declaration with the method replacing the method of the same
+   * signature, or added as the last class body element.
+   *
+   * @see #withField(FieldDeclaration)
+   */
+  public NormalClassDeclaration withMethod(MethodDeclaration method) {
+    NormalClassDeclaration variant = derive();
+    variant.putClassBodyElement(
+        method,
+        element ->
+            element instanceof MethodDeclaration
+                && method.hasSignatureOf((MethodDeclaration) element));
+    variant.share();
+    return variant;
+  }
+
+  /** Share this declaration and return a new unshared one referencing the same child nodes. */
+  private NormalClassDeclaration derive() {
+    if (!isShared()) {
+      share();
+    }
+    NormalClassDeclaration variant = new NormalClassDeclaration();
+    variant.copyFrom(this);
+    variant.superClass = superClass;
+    if (!isTypeParametersEmpty()) {
+      variant.getTypeParameters().addAll(typeParameters);
+    }
+    return variant;
+  }
 }
@@ -19,6 +19,7 @@ import com.github.sormuras.listing.Listing;
 import com.github.sormuras.listing.Name;
 import java.lang.annotation.ElementType;
 import java.net.URI;
+import java.util.Objects;
 
 /**
  * Package declaration.
@@ -53,6 +54,24 @@ public class PackageDeclaration extends Annotated {
     return listing.add(toAnnotationsListable()).add("package ").add(name).add(';').newline();
   }
 
+  @Override
+  protected boolean equalsState(Annotated other) {
+    return Objects.equals(name, ((PackageDeclaration) other).name);
+  }
+
+  @Override
+  public int estimateLength() {
+    if (isUnnamed()) {
+      return 0;
+    }
+    return estimateAnnotationsLength() + 9 + name.getPackageName().length();
+  }
+
+  @Override
+  public int estimateLines() {
+    return isUnnamed() ? 0 : 1 + estimateAnnotationsLines();
+  }
+
   @Override
   public ElementType getAnnotationTarget() {
     return ElementType.PACKAGE;
@@ -62,6 +81,11 @@ public class PackageDeclaration extends Annotated {
     return name;
   }
 
+  @Override
+  protected int hashState() {
+    return Objects.hashCode(name);
+  }
+
   @Override
   public boolean isEmpty() {
     return isUnnamed();
@@ -79,6 +103,7 @@ public class PackageDeclaration extends Annotated {
   }
 
   public void setName(Name name) {
+    markMutated();
     this.name = name;
   }
 
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2016 Christian Stein
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.github.sormuras.listing.unit;
+
+import com.github.sormuras.listing.Annotated;
+import java.util.Collection;
+
+/** Share nodes of the unit model, see {@link Annotated#share()}. */
+final class Sharing {
+
+  /** Share the node if it is shareable and not shared yet, other objects are left untouched. */
+  static void share(Object node) {
+    if (node instanceof Annotated) {
+      Annotated annotated = (Annotated) node;
+      if (!annotated.isShared()) {
+        annotated.share();
+      }
+      return;
+    }
+    if (node instanceof Block) {
+      Block block = (Block) node;
+      if (!block.isShared()) {
+        block.share();
+      }
+    }
+  }
+
+  /** Share all shareable nodes of the collection. */
+  static void shareAll(Collection<?> nodes) {
+    nodes.forEach(Sharing::share);
+  }
+
+  private Sharing() {}
+}
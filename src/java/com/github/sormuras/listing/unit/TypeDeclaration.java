@@ -14,6 +14,9 @@
 
 package com.github.sormuras.listing.unit;
 
+import com.github.sormuras.listing.Annotated;
+import com.github.sormuras.listing.Listable;
+import com.github.sormuras.listing.Mutation;
 import com.github.sormuras.listing.Name;
 import java.lang.annotation.ElementType;
 import java.util.ArrayList;
@@ -46,6 +49,40 @@ public abstract class TypeDeclaration extends ClassMemberDeclaration
     return declaration;
   }
 
+  @Override
+  void copyFrom(NamedMember base) {
+    super.copyFrom(base);
+    TypeDeclaration type = (TypeDeclaration) base;
+    if (!type.isDeclarationsEmpty()) {
+      getDeclarations().addAll(type.declarations);
+    }
+  }
+
+  @Override
+  protected boolean equalsState(Annotated other) {
+    TypeDeclaration that = (TypeDeclaration) other;
+    return super.equalsState(other) && declarations.equals(that.declarations);
+  }
+
+  /** Return estimated length of header, braces and nested declarations of this type. */
+  int estimateTypeLength(String keyword) {
+    int length = estimateAnnotationsLength() + estimateModifiersLength();
+    length += keyword.length() + 1 + estimateNameLength() + 4;
+    if (!isDeclarationsEmpty()) {
+      length += Listable.estimateLength(declarations, 0);
+    }
+    return length;
+  }
+
+  /** Return estimated number of lines of header, braces and nested declarations of this type. */
+  int estimateTypeLines() {
+    int lines = 3 + estimateAnnotationsLines();
+    if (!isDeclarationsEmpty()) {
+      lines += Listable.estimateLines(declarations);
+    }
+    return lines;
+  }
+
   @Override
   public ElementType getAnnotationTarget() {
     return ElementType.TYPE;
@@ -53,10 +90,15 @@ public abstract class TypeDeclaration extends ClassMemberDeclaration
 
   @Override
   public List<TypeDeclaration> getDeclarations() {
-    if (declarations == Collections.EMPTY_LIST) {
-      declarations = new ArrayList<>();
+    if (declarations == Collections.EMPTY_LIST && !isShared()) {
+      declarations = Mutation.trackedList(getHub());
     }
-    return declarations;
+    return guarded(declarations);
+  }
+
+  @Override
+  protected int hashState() {
+    return 31 * super.hashState() + declarations.hashCode();
   }
 
   @Override
@@ -68,6 +110,18 @@ public abstract class TypeDeclaration extends ClassMemberDeclaration
     return declarations.isEmpty();
   }
 
+  /** Mark this declaration and all nested declarations as shared, any later change throws. */
+  @Override
+  public void share() {
+    Sharing.shareAll(declarations);
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(declarations));
+  }
+
   /** Return simple name representation of this type declaration. */
   public Name toName() {
     String packageName = "";
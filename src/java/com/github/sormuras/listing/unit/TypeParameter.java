@@ -15,16 +15,18 @@
 package com.github.sormuras.listing.unit;
 
 import com.github.sormuras.listing.Annotated;
+import com.github.sormuras.listing.Listable;
 import com.github.sormuras.listing.Listing;
+import com.github.sormuras.listing.Mutation;
 import com.github.sormuras.listing.Tool;
 import com.github.sormuras.listing.type.ClassType;
 import com.github.sormuras.listing.type.JavaType;
 import com.github.sormuras.listing.type.TypeVariable;
 import java.lang.annotation.ElementType;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import javax.lang.model.SourceVersion;
 
@@ -62,6 +64,7 @@ public class TypeParameter extends Annotated {
 
   /** Add bound(s) to the list of bounds and clears bound type variable. */
   public void addBounds(ClassType... bounds) {
+    markMutated();
     this.boundTypeVariable = null;
     if (bounds.length == 0) {
       return;
@@ -72,6 +75,7 @@ public class TypeParameter extends Annotated {
 
   /** Add bound(s) to the list of bounds and clears bound type variable. */
   public void addBounds(JavaType... bounds) {
+    markMutated();
     this.boundTypeVariable = null;
     if (bounds.length == 0) {
       return;
@@ -95,16 +99,36 @@ public class TypeParameter extends Annotated {
     return listing;
   }
 
+  @Override
+  protected boolean equalsState(Annotated other) {
+    TypeParameter that = (TypeParameter) other;
+    return name.equals(that.name)
+        && bounds.equals(that.bounds)
+        && Objects.equals(boundTypeVariable, that.boundTypeVariable);
+  }
+
+  @Override
+  public int estimateLength() {
+    int length = estimateAnnotationsLength() + name.length();
+    if (boundTypeVariable != null) {
+      return length + 9 + boundTypeVariable.estimateLength();
+    }
+    if (!bounds.isEmpty()) {
+      return length + 9 + Listable.estimateLength(bounds, 3);
+    }
+    return length;
+  }
+
   @Override
   public ElementType getAnnotationTarget() {
     return ElementType.TYPE_PARAMETER;
   }
 
   public List<ClassType> getBounds() {
-    if (bounds == Collections.EMPTY_LIST) {
-      bounds = new ArrayList<>();
+    if (bounds == Collections.EMPTY_LIST && !isShared()) {
+      bounds = Mutation.trackedList(getHub());
     }
-    return bounds;
+    return guarded(bounds);
   }
 
   public Optional<TypeVariable> getBoundTypeVariable() {
@@ -115,6 +139,11 @@ public class TypeParameter extends Annotated {
     return name;
   }
 
+  @Override
+  protected int hashState() {
+    return 31 * (31 * name.hashCode() + bounds.hashCode()) + Objects.hashCode(boundTypeVariable);
+  }
+
   /** Set single type variable as bound and clears all other bounds. */
   public void setBoundTypeVariable(String typeVariableName) {
     setBoundTypeVariable(TypeVariable.of(typeVariableName));
@@ -122,6 +151,7 @@ public class TypeParameter extends Annotated {
 
   /** Set single type variable as bound and clears all other bounds. */
   public void setBoundTypeVariable(TypeVariable boundTypeVariable) {
+    markMutated();
     this.boundTypeVariable = boundTypeVariable;
     if (!bounds.isEmpty()) {
       getBounds().clear();
@@ -129,6 +159,20 @@ public class TypeParameter extends Annotated {
   }
 
   public void setName(String name) {
+    markMutated();
     this.name = name;
   }
+
+  /** Mark this type parameter and its bounds as shared, any later change throws. */
+  @Override
+  public void share() {
+    Sharing.shareAll(bounds);
+    Sharing.share(boundTypeVariable);
+    super.share();
+  }
+
+  @Override
+  protected long stampState() {
+    return Math.max(super.stampState(), Mutation.stamp(bounds, boundTypeVariable));
+  }
 }
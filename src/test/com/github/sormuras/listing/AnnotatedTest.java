@@ -2,7 +2,9 @@ package com.github.sormuras.listing;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.github.sormuras.listing.type.ArrayDimension;
@@ -15,6 +17,7 @@ import com.github.sormuras.listing.type.VoidType;
 import com.github.sormuras.listing.type.WildcardType;
 import com.github.sormuras.listing.unit.AnnotationDeclaration;
 import com.github.sormuras.listing.unit.AnnotationElement;
+import com.github.sormuras.listing.unit.Block;
 import com.github.sormuras.listing.unit.ConstantDeclaration;
 import com.github.sormuras.listing.unit.EnumConstant;
 import com.github.sormuras.listing.unit.EnumDeclaration;
@@ -25,7 +28,10 @@ import com.github.sormuras.listing.unit.MethodParameter;
 import com.github.sormuras.listing.unit.NormalClassDeclaration;
 import com.github.sormuras.listing.unit.PackageDeclaration;
 import com.github.sormuras.listing.unit.TypeParameter;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.function.Supplier;
 import org.junit.jupiter.api.Test;
 import test.U;
@@ -140,6 +146,90 @@ class AnnotatedTest {
     test(WildcardType::new);
   }
 
+  @Test
+  void structuralEquality() {
+    ClassType a = ClassType.of(Comparable.class, String.class);
+    ClassType b = ClassType.of(Comparable.class, String.class);
+    assertNotSame(a, b);
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    assertNotEquals(a, ClassType.of(Comparable.class, Integer.class));
+    Set<Annotated> set = new HashSet<>(Arrays.asList(a, b));
+    assertEquals(1, set.size());
+    // annotations and their values are part of the state
+    a.addAnnotation(Annotation.of(V.class, 1));
+    assertNotEquals(a, b);
+    b.addAnnotation(Annotation.of(V.class, 1));
+    assertEquals(a, b);
+    b.getAnnotations().get(0).addValue(2);
+    assertNotEquals(a, b);
+    // cached hash follows mutations of children
+    int hash = a.hashCode();
+    a.getNames().get(0).setName("Comparator");
+    assertNotEquals(hash, a.hashCode());
+    // declarations compare by state, not by enclosing node
+    NormalClassDeclaration x = NormalClassDeclaration.of("X");
+    NormalClassDeclaration y = NormalClassDeclaration.of("X");
+    x.declareMethod(int.class, "m").addParameter(int.class, "i");
+    assertNotEquals(x, y);
+    y.declareMethod(int.class, "m").addParameter(int.class, "i");
+    assertEquals(x, y);
+    assertEquals(x.hashCode(), y.hashCode());
+  }
+
+  @Test
+  void sharingRefreshesStaleCache() {
+    ClassType type = ClassType.of("a", "B");
+    int hash = type.hashCode();
+    type.setPackageName("x");
+    type.share();
+    ClassType expected = ClassType.of("x", "B");
+    assertNotEquals(hash, type.hashCode());
+    assertEquals(expected.hashCode(), type.hashCode());
+    assertEquals(expected, type);
+  }
+
+  @Test
+  void changesInvalidateDependentStampsOnly() {
+    NormalClassDeclaration type = NormalClassDeclaration.of("X");
+    MethodDeclaration m = type.declareMethod(void.class, "m");
+    MethodDeclaration n = type.declareMethod(void.class, "n");
+    Block body = new Block();
+    n.setBody(body);
+    long stamp = type.getMutationStamp();
+    assertTrue(n.getHub().isValid());
+    // the change invalidates the path from m up, its sibling keeps its stamp
+    m.addStatement("m()");
+    assertFalse(m.getHub().isValid());
+    assertFalse(type.getHub().isValid());
+    assertTrue(n.getHub().isValid());
+    assertTrue(type.getMutationStamp() > stamp);
+    assertEquals(m.getMutationStamp(), type.getMutationStamp());
+    // a change deep down in a block is reported up the path, too
+    body.add("n()");
+    assertFalse(type.getHub().isValid());
+    assertEquals(n.getMutationStamp(), type.getMutationStamp());
+    // a stamped node without hub is checked again whenever the epoch advances
+    long[] untracked = {0};
+    body.add(
+        new Stamped() {
+          private static final long serialVersionUID = 0;
+
+          @Override
+          public Listing apply(Listing listing) {
+            return listing;
+          }
+
+          @Override
+          public long getMutationStamp() {
+            return untracked[0];
+          }
+        });
+    type.getMutationStamp();
+    untracked[0] = Mutation.advance();
+    assertEquals(untracked[0], type.getMutationStamp());
+  }
+
   private void test(Supplier<? extends Annotated> supplier) {
     testInitial(supplier.get());
     testMutable(supplier.get());
@@ -1,6 +1,7 @@
 package com.github.sormuras.listing;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.expectThrows;
 
@@ -88,6 +89,17 @@ class AnnotationTest {
         String.format("%s", marker));
   }
 
+  @Test
+  void sharingDropsStaleComparisonKey() {
+    Annotation annotation = Annotation.of(Generated.class, "a");
+    String key = annotation.comparisonKey();
+    annotation.addValue("b");
+    annotation.share();
+    assertNotEquals(key, annotation.comparisonKey());
+    Annotation expected = Annotation.of(Generated.class, "a", "b");
+    assertEquals(expected.comparisonKey(), annotation.comparisonKey());
+  }
+
   @Test
   void singleElementAnnotation() {
     Class<Generated> type = Generated.class;
@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.lang.reflect.Method;
+import java.net.URI;
 import javax.tools.JavaFileObject;
 import org.junit.jupiter.api.Test;
 
@@ -39,6 +40,19 @@ class CompilationTest {
     assertThrows(ClassNotFoundException.class, () -> loader.loadClass("Hello"));
   }
 
+  @Test
+  void hiFromBytes() throws Exception {
+    Utf8Buffer bytes = Utf8Buffer.allocateDirect(16);
+    bytes.append("public class Hi { public String greet() { return \"Hi \u03b1\";}}");
+    JavaFileObject file = source(URI.create("Hi.java"), bytes.toReadOnlyBuffer());
+    Class<?> hiClass = compile(file).loadClass("Hi");
+    assertEquals("Hi α", hiClass.getMethod("greet").invoke(hiClass.newInstance()));
+    byte[] content = new byte[bytes.length()];
+    assertEquals(content.length, file.openInputStream().read(content));
+    assertEquals(file.getCharContent(true).toString(), new String(content, "UTF-8"));
+    assertNotEquals(0L, file.getLastModified());
+  }
+
   @Test
   void lastModified() {
     JavaFileObject jfo = new Compilation.CharContentFileObject("abc", "abc");
@@ -6,9 +6,17 @@ import static com.github.sormuras.listing.Listable.SPACE;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.github.sormuras.listing.type.ClassType;
+import com.github.sormuras.listing.unit.CompilationUnits;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 class ListableTest {
@@ -54,6 +62,24 @@ class ListableTest {
     assertEquals("identity#listing.identity", IDENTITY.comparisonKey());
   }
 
+  @Test
+  void comparisonKeyCached() {
+    Annotation annotation = Annotation.of(Deprecated.class);
+    String key = annotation.comparisonKey();
+    assertSame(key, annotation.comparisonKey());
+    annotation.addValue(1);
+    assertNotEquals(key, annotation.comparisonKey());
+    ClassType type = ClassType.of(Object.class).copy();
+    key = type.comparisonKey();
+    assertSame(key, type.comparisonKey());
+    type.addAnnotation(annotation);
+    assertNotEquals(key, type.comparisonKey());
+    Name name = Name.of(Object.class);
+    assertEquals(0, name.compareTo(Name.of(Object.class)));
+    assertTrue(name.compareTo(Name.of(String.class)) < 0);
+    assertTrue(Name.of(String.class).compareTo(name) > 0);
+  }
+
   @Test
   void empty() {
     assertTrue(IDENTITY.isEmpty());
@@ -62,6 +88,35 @@ class ListableTest {
     assertFalse(new A().isEmpty());
   }
 
+  @Test
+  void emptyWithoutRendering() throws Exception {
+    ClassLoader loader = getClass().getClassLoader();
+    List<Class<?>> types = new ArrayList<>();
+    for (String suffix : Arrays.asList("", ".type", ".unit")) {
+      CompilationUnits.classes(loader, "com.github.sormuras.listing" + suffix).forEach(types::add);
+    }
+    for (int i = 0; i < types.size(); i++) {
+      types.addAll(Arrays.asList(types.get(i).getDeclaredClasses()));
+    }
+    URL main = Listable.class.getProtectionDomain().getCodeSource().getLocation();
+    int checked = 0;
+    for (Class<?> type : types) {
+      if (!Listable.class.isAssignableFrom(type) || type.isInterface()) {
+        continue;
+      }
+      if (!main.equals(type.getProtectionDomain().getCodeSource().getLocation())) {
+        continue;
+      }
+      if (Modifier.isAbstract(type.getModifiers())) {
+        continue;
+      }
+      Class<?> declaring = type.getMethod("isEmpty").getDeclaringClass();
+      assertNotEquals(Listable.class, declaring, type + " renders to answer isEmpty()");
+      checked++;
+    }
+    assertTrue(checked > 30, "only " + checked + " listable classes found");
+  }
+
   @Test
   void list() {
     assertEquals("a", new A().list());
@@ -69,4 +124,21 @@ class ListableTest {
     assertEquals("", NEWLINE.list()); // initial new line is ignored
     assertEquals(" ", SPACE.list());
   }
+
+  @Test
+  void listNested() {
+    Listable inner = listing -> listing.add("i").newline().add("j");
+    Listable outer = listing -> listing.add(inner.list()).newline().add("o");
+    assertEquals("i\nj\no", outer.list());
+    assertEquals("i\nj\r\no", outer.list(b -> b.setLineSeparator("\r\n")));
+    assertEquals("i\nj\no", outer.list());
+  }
+
+  @Test
+  void listToTargetSetByOperator() {
+    Listable listable = listing -> listing.add("a").newline().add("b");
+    StringBuilder target = new StringBuilder();
+    assertEquals("", listable.list(b -> b.setTarget(target)));
+    assertEquals("a\nb", target.toString());
+  }
 }
@@ -7,11 +7,19 @@ import static java.lang.Math.PI;
 import static java.util.Arrays.asList;
 import static java.util.Locale.GERMAN;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 import javax.script.Invocable;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
@@ -166,6 +174,153 @@ class ListingTest {
     assertEquals("Hi Bob", invocable.invokeFunction("fun1", "Bob"));
   }
 
+  @Test
+  void streaming() {
+    StringWriter writer = new StringWriter();
+    Listing listing = Listing.builder().setTarget(writer).build();
+    listing.add("BEGIN").newline().newline().newline();
+    listing.indent(1).add("a").newline().add("b").newline().add("c").newline().indent(-1);
+    assertEquals(6, listing.getCurrentLineNumber());
+    listing.newline().newline().trim();
+    assertEquals(6, listing.getCurrentLineNumber());
+    listing.add("END.").flush();
+    assertEquals("BEGIN\n\n  a\n  b\n  c\nEND.", writer.toString());
+    assertEquals("", listing.toString());
+    assertEquals(true, listing.getTarget().isPresent());
+    assertEquals(false, new Listing().getTarget().isPresent());
+  }
+
+  @Test
+  void streamingHoldsBackOnlyTail() {
+    StringWriter writer = new StringWriter();
+    Listing listing = Listing.builder().setTarget(writer).build();
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      listing.indent(i % 3).add("line " + i).newline().indent(-3);
+      expected.append(Listing.builder().build().indent(i % 3).add("line " + i).newline());
+    }
+    assertEquals(10001, listing.getCurrentLineNumber());
+    assertEquals(true, listing.getLines().size() < 2000);
+    List<String> tail = listing.getLines();
+    tail = tail.subList(tail.size() - 2, tail.size());
+    assertEquals(asList("    line 9998", "line 9999"), tail);
+    listing.flush();
+    assertEquals(0, listing.getLines().size());
+    assertEquals(expected.toString(), writer.toString());
+  }
+
+  @Test
+  void streamingToChannel() {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    Listing listing = Listing.builder().setTarget(Channels.newChannel(stream)).build();
+    listing.add("α").newline().add("β").newline().add("γ").newline().add("δ").flush();
+    assertEquals("α\nβ\nγ\nδ", new String(stream.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void streamingListable() {
+    StringWriter writer = new StringWriter();
+    Listable listable = listing -> listing.add("a").newline().add("b").newline().newline();
+    listable.list(writer);
+    assertEquals(listable.list(), writer.toString());
+  }
+
+  @Test
+  void ensureCapacity() {
+    Listing listing = new Listing();
+    listing.add("a").newline().add("b");
+    listing.ensureCapacity(100_000, 10_000);
+    listing.newline().add("c");
+    assertEquals("a\nb\nc", listing.toString());
+    assertEquals(asList("a", "b"), listing.getLines());
+  }
+
+  @Test
+  void addParallel() {
+    List<Listable> samples = new ArrayList<>();
+    samples.add(l -> l.add("open").newline());
+    samples.add(l -> l.newline().add("a").newline().newline());
+    samples.add(l -> l.add("inline"));
+    samples.add(l -> l.newline().push("x").add("b").newline());
+    samples.add(l -> l.add(l.getNameStack().peek()).newline().pop());
+    samples.add(l -> l.indent(1).add("c").newline());
+    samples.add(l -> l.add("d").newline().indent(-1));
+    samples.add(l -> l.trim().add("e").newline());
+    List<Listable> separators = asList(IDENTITY, NEWLINE, SPACE, l -> l.add(","));
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      // short lists rendered sequentially and long lists with batches starting at every sample
+      for (int offset = 0; offset < samples.size(); offset++) {
+        for (int size : asList(3, 13, 40)) {
+          List<Listable> listables = new ArrayList<>();
+          for (int i = 0; i < size; i++) {
+            listables.add(samples.get((offset + i) % samples.size()));
+          }
+          for (Listable separator : separators) {
+            Listing sequential = new Listing().indent(1).push("n");
+            sequential.add(listables, separator);
+            Listing parallel = Listing.builder().setRenderPool(pool).build().indent(1).push("n");
+            parallel.addParallel(listables, separator);
+            assertEquals(sequential.toString(), parallel.toString());
+            assertEquals(sequential.getLines(), parallel.getLines());
+            assertEquals(sequential.getIndentationDepth(), parallel.getIndentationDepth());
+            List<String> names = new ArrayList<>(sequential.getNameStack());
+            assertEquals(names, new ArrayList<>(parallel.getNameStack()));
+          }
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void reset() {
+    Listing listing = Listing.builder().setIndentationString("\t").build();
+    listing.push("a").indent(2).add("abc").newline().add("def");
+    assertEquals("\t\tabc\ndef", listing.toString());
+    listing.reset();
+    assertEquals("", listing.toString());
+    assertEquals(0, listing.getLines().size());
+    assertEquals(0, listing.getIndentationDepth());
+    assertEquals(0, listing.getNameStack().size());
+    assertEquals(1, listing.getCurrentLineNumber());
+    assertEquals("\t", listing.getIndentationString());
+    listing.indent(1).add("x").newline();
+    assertEquals("\tx\n", listing.toString());
+    // references to a model are dropped
+    Predicate<Name> imported = name -> true;
+    listing = Listing.builder().setImported(imported).setLineSeparator("\r\n").build();
+    listing.reset();
+    assertNotSame(imported, listing.getImported());
+    assertEquals("\r\n", listing.getLineSeparator());
+  }
+
+  @Test
+  void pooled() {
+    Listing.Builder builder = Listing.builder().setLineSeparator("\r\n");
+    Listing outer = Listing.acquire(builder.configuration());
+    outer.add("outer").newline();
+    Listing inner = Listing.acquire(Listing.Configuration.DEFAULT);
+    assertNotSame(outer, inner);
+    inner.add("inner").newline();
+    assertEquals("inner\n", inner.toString());
+    inner.release();
+    assertEquals("outer\r\n", outer.toString());
+    outer.release();
+    Listing reused = Listing.acquire(Listing.Configuration.DEFAULT);
+    assertSame(outer, reused);
+    assertEquals("", reused.toString());
+    assertEquals("\n", reused.getLineSeparator());
+    reused.release();
+    assertThrows(IllegalStateException.class, reused::release);
+    // idle listings do not keep the imported predicate of their last use
+    Predicate<Name> imported = name -> true;
+    Listing listing = Listing.acquire(Listing.builder().setImported(imported).configuration());
+    listing.release();
+    assertNotSame(imported, listing.getImported());
+  }
+
   @Test
   void trim() {
     Listing listing = new Listing();
@@ -181,4 +336,37 @@ class ListingTest {
     listing.trim();
     assertEquals("abcef\n", listing.toString());
   }
+
+  @Test
+  void wrap() {
+    List<Listable> words = new ArrayList<>();
+    for (String word : "alpha beta gamma delta epsilon zeta".split(" ")) {
+      words.add(listing -> listing.add(word));
+    }
+    Listing listing = Listing.builder().setMaxColumn(20).build();
+    listing.indent(1).add("f(").add(words, ", ").add(");").newline();
+    String expected = "  f(alpha, beta,\n      gamma, delta,\n      epsilon, zeta);\n";
+    assertEquals(expected, listing.toString());
+    // the text of a separator counts towards the element in front of it
+    listing = Listing.builder().setMaxColumn(10).build();
+    listing.add(asList(l -> l.add("aaaa"), l -> l.add("bbbb"), l -> l.add("cccc")), ", ");
+    assertEquals("aaaa,\n    bbbb,\n    cccc", listing.toString());
+    // reserved columns count towards the last element
+    listing = Listing.builder().setMaxColumn(10).build();
+    listing.add(asList(l -> l.add("aa"), l -> l.add("bb")), ", ", 5).add(") {};");
+    assertEquals("aa,\n    bb) {};", listing.toString());
+    listing = Listing.builder().setMaxColumn(10).build();
+    listing.add("f() ").addWrapped(l -> l.add("throws"), 1).add(";");
+    assertEquals("f()\n    throws;", listing.toString());
+    // only separators ending with a space are break points, nested lists are not wrapped
+    listing = Listing.builder().setMaxColumn(10).build();
+    listing.add(words, ".");
+    assertEquals("alpha.beta.gamma.delta.epsilon.zeta", listing.toString());
+    listing = Listing.builder().setMaxColumn(10).build();
+    listing.add(asList(l -> l.add(words, " "), l -> l.add("!")), " ");
+    assertEquals("alpha beta gamma delta epsilon zeta\n    !", listing.toString());
+    // disabled by default
+    assertEquals(0, new Listing().getMaxColumn());
+    assertThrows(IllegalArgumentException.class, () -> Listing.builder().setMaxColumn(-1));
+  }
 }
@@ -12,7 +12,9 @@ import static org.junit.jupiter.api.Assertions.expectThrows;
 import com.github.sormuras.listing.unit.CompilationUnit;
 import com.github.sormuras.listing.unit.NormalClassDeclaration;
 import java.lang.annotation.ElementType;
+import java.lang.ref.WeakReference;
 import java.math.BigInteger;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import javax.lang.model.element.Modifier;
@@ -72,6 +74,68 @@ class NameTest {
     assertFalse(of(byte.class).equals(of("a", "byte")));
   }
 
+  @Test
+  void interned() throws Exception {
+    Name state = of("java.lang", "Thread", "State");
+    assertEquals(of(Thread.State.class), state);
+    assertFalse(state.equals(of("java.lang.Thread", "State")));
+    assertSame(of(Thread.State.class).getSimpleNames(), state.getSimpleNames());
+    assertSame(state.getEnclosing().get(), of(Thread.State.class).getEnclosing().get());
+    assertSame(of(Thread.class).getEnclosing().get(), of(Object.class).getEnclosing().get());
+    assertTrue(state.getEnclosing().get().isShared());
+    Object converted = Tests.convertFromBytes(Tests.convertToBytes(state));
+    assertEquals(state, converted);
+    assertSame(state.getCanonicalName(), ((Name) converted).getCanonicalName());
+  }
+
+  @Test
+  void internedSymbolsAreCollected() {
+    Name name = of("unused.pkg" + System.nanoTime(), "Type", "Member");
+    WeakReference<Name> plain = new WeakReference<>(name.getEnclosing().get());
+    WeakReference<String> canonical = new WeakReference<>(name.getCanonicalName());
+    Name type = of(name.getPackageName(), "Type");
+    assertSame(plain.get().getCanonicalName(), type.getCanonicalName());
+    type = null;
+    name = null;
+    for (int i = 0; i < 10 && (plain.get() != null || canonical.get() != null); i++) {
+      System.gc();
+      of("unused", "Trigger" + i);
+    }
+    assertNull(plain.get());
+    assertNull(canonical.get());
+  }
+
+  @Test
+  void parse() {
+    assertEquals(of(Map.Entry.class), Name.parse("java.util.Map.Entry"));
+    assertEquals(of(Name.class), Name.parse("com.github.sormuras.listing.Name"));
+    assertEquals(of("java.util.concurrent"), Name.parse("java.util.concurrent"));
+    assertEquals(ElementType.PACKAGE, Name.parse("java.util").getTarget().get());
+    assertEquals(ElementType.TYPE, Name.parse("java.lang.Thread").getTarget().get());
+    assertEquals(of("", "Unnamed"), Name.parse("Unnamed"));
+    assertEquals(of("abc.xyz", "Foo", "Bar"), Name.parse("abc.xyz.Foo.Bar"));
+    assertEquals(of("\u00e4", "\u00d6"), Name.parse("\u00e4.\u00d6"));
+    expectThrows(IllegalArgumentException.class, () -> Name.parse(""));
+    expectThrows(IllegalArgumentException.class, () -> Name.parse("java..Map"));
+    expectThrows(IllegalArgumentException.class, () -> Name.parse("java.util."));
+    expectThrows(IllegalArgumentException.class, () -> Name.parse("java.1a"));
+  }
+
+  @Test
+  void shared() throws Exception {
+    assertSame(of(Thread.State.class), of(Thread.State.class));
+    assertSame(of(Thread.State.NEW), of(Thread.State.NEW));
+    assertSame(of(Math.class.getField("PI")), of(Math.class.getField("PI")));
+    Name name = of(Thread.State.NEW);
+    assertTrue(name.isShared());
+    assertEquals(ElementType.FIELD, name.getTarget().get());
+    expectThrows(UnsupportedOperationException.class, () -> name.setTarget(ElementType.TYPE));
+    expectThrows(UnsupportedOperationException.class, () -> name.addModifier(Modifier.ABSTRACT));
+    expectThrows(UnsupportedOperationException.class, () -> of(Object.class).setModifiers(0));
+    assertTrue(of(Object.class).isPublic());
+    assertFalse(of("java.lang", "Object").isShared());
+  }
+
   @Test
   void simpleNamesJoined() {
     assertEquals("Object", simpleNamesJoined(of(Object.class)));
@@ -125,8 +189,10 @@ class NameTest {
     assertTrue(of(Thread.State.NEW).isModified()); // public static final
     Name name = of(getClass().getDeclaredMethod("modified"));
     assertFalse(name.isModified()); // <empty>
-    name.addModifier(Modifier.SYNCHRONIZED);
-    assertTrue(name.isModified()); // synchronized
+    expectThrows(UnsupportedOperationException.class, () -> name.addModifier(Modifier.FINAL));
+    Name copy = new Name(name.getPackageName(), name.getSimpleNames());
+    copy.addModifier(Modifier.SYNCHRONIZED);
+    assertTrue(copy.isModified()); // synchronized
   }
 
   @Test
@@ -0,0 +1,126 @@
+package com.github.sormuras.listing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.github.sormuras.listing.type.ClassType;
+import com.github.sormuras.listing.type.TypeArgument;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import test.U;
+
+class RenderCacheTest {
+
+  private static String cached(Listable listable) {
+    return listable.list(builder -> builder.setRenderCacheEnabled(true));
+  }
+
+  @Test
+  void classType() {
+    ClassType type = ClassType.of(Map.class, String.class, List.class);
+    String expected = "java.util.Map<java.lang.String, java.util.List>";
+    assertEquals(expected, type.list());
+    assertEquals(expected, cached(type));
+    assertEquals(expected, cached(type));
+    // mutate nested node
+    ClassType list = (ClassType) type.getTypeArguments().get(1).getReference();
+    list.getTypeArguments().add(TypeArgument.of(Integer.class));
+    expected = "java.util.Map<java.lang.String, java.util.List<java.lang.Integer>>";
+    assertEquals(expected, cached(type));
+    list.addAnnotation(U.class);
+    expected = "java.util.Map<java.lang.String, java.util.@test.U List<java.lang.Integer>>";
+    assertEquals(expected, cached(type));
+    assertEquals(expected, type.list());
+  }
+
+  @Test
+  void settings() {
+    ClassType type = ClassType.of(Thread.State.class);
+    assertEquals("java.lang.Thread.State", cached(type));
+    String omitted = type.list(b -> b.setRenderCacheEnabled(true).setOmitJavaLangPackage(true));
+    assertEquals("Thread.State", omitted);
+    String imported = type.list(b -> b.setRenderCacheEnabled(true).setImported(n -> true));
+    assertEquals("Thread.State", imported);
+    assertEquals("java.lang.Thread.State", cached(type));
+  }
+
+  @Test
+  void annotation() {
+    Annotation annotation = new Annotation(Name.of(U.class));
+    assertEquals("@test.U", cached(annotation));
+    annotation.addValue(1);
+    assertEquals("@test.U(1)", cached(annotation));
+    annotation.getMembers().get("value").set(0, Annotation.value(2));
+    assertEquals("@test.U(2)", cached(annotation));
+    annotation.getMembers().remove("value");
+    assertEquals("@test.U", cached(annotation));
+  }
+
+  @Test
+  void entry() {
+    RenderCache cache = new RenderCache();
+    Listing listing = Listing.builder().setRenderCacheEnabled(true).build();
+    assertNull(cache.get(listing, 1));
+    cache.put(1, listing, "text");
+    assertEquals("text", cache.get(listing, 1));
+    assertNull(cache.get(Listing.builder().setImported(n -> true).build(), 1));
+    Mutation.advance();
+    assertEquals("text", cache.get(listing, 1));
+    assertNull(cache.get(listing, 2));
+  }
+
+  @Test
+  void importedPredicateIsNotRetained() {
+    Object unit = new Object();
+    Listing listing = Listing.builder().setImported(name -> unit.hashCode() != 0).build();
+    WeakReference<Predicate<Name>> imported = new WeakReference<>(listing.getImported());
+    RenderCache cache = new RenderCache();
+    cache.put(1, listing, "text");
+    assertEquals("text", cache.get(listing, 1));
+    listing = null;
+    for (int i = 0; i < 10 && imported.get() != null; i++) {
+      System.gc();
+    }
+    assertNull(imported.get());
+  }
+
+  @Test
+  void changesElsewhereKeepEntry() {
+    ClassType type = ClassType.of(Map.class, String.class, List.class);
+    ClassType other = ClassType.of(Map.class, String.class, List.class);
+    Listing listing = Listing.builder().setRenderCacheEnabled(true).build();
+    RenderCache cache = new RenderCache();
+    cache.apply(listing, type.getMutationStamp(), type::apply);
+    other.addAnnotation(U.class);
+    assertEquals(listing.toString(), cache.get(listing, type.getMutationStamp()));
+    type.addAnnotation(U.class);
+    assertNull(cache.get(listing, type.getMutationStamp()));
+  }
+
+  @Test
+  void untrackedAnnotationValueIsNotCached() {
+    StringBuilder value = new StringBuilder("1");
+    Annotation annotation = new Annotation(Name.of(U.class));
+    annotation.addMember("value", listing -> listing.add(value));
+    assertEquals("@test.U(1)", cached(annotation));
+    value.replace(0, 1, "2");
+    assertEquals("@test.U(2)", cached(annotation));
+  }
+
+  @Test
+  void multipleLinesAreNotCached() {
+    RenderCache cache = new RenderCache();
+    Listing listing = Listing.builder().setRenderCacheEnabled(true).build();
+    listing.indent(1);
+    cache.apply(listing, 1, l -> l.add("a").newline().add("b"));
+    assertEquals("  a\nb", listing.toString());
+    assertNull(cache.get(listing, 1));
+    cache.apply(listing, 1, l -> l.add("c"));
+    assertNotNull(cache.get(listing, 1));
+    assertEquals("  a\nbc", listing.toString());
+  }
+}
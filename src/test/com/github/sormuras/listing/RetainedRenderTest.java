@@ -0,0 +1,257 @@
+package com.github.sormuras.listing;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.sormuras.listing.RetainedRender.LineRange;
+import com.github.sormuras.listing.unit.CompilationUnit;
+import com.github.sormuras.listing.unit.FieldDeclaration;
+import com.github.sormuras.listing.unit.MethodDeclaration;
+import com.github.sormuras.listing.unit.MethodParameter;
+import com.github.sormuras.listing.unit.NormalClassDeclaration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.lang.model.element.Modifier;
+import org.junit.jupiter.api.Test;
+
+class RetainedRenderTest {
+
+  /** Node with a manual stamp that may trim the empty lines in front of it. */
+  private static class Node implements Retainable {
+
+    private int applied = 0;
+    private final List<Node> children = new ArrayList<>();
+    private boolean gap = false;
+    private long stamp = 0;
+    private String text;
+    private boolean trim = false;
+
+    Node(String text) {
+      this.text = text;
+    }
+
+    @Override
+    public Listing apply(Listing listing) {
+      applied++;
+      if (trim) {
+        listing.trim();
+      }
+      listing.add(text).newline();
+      if (gap) {
+        listing.newline();
+      }
+      children.forEach(listing::add);
+      return listing;
+    }
+
+    @Override
+    public long getMutationStamp() {
+      return children.stream().mapToLong(Node::getMutationStamp).reduce(stamp, Math::max);
+    }
+
+    Node set(String text, boolean trim, boolean gap) {
+      this.text = text;
+      this.trim = trim;
+      this.gap = gap;
+      this.stamp = Mutation.advance();
+      return this;
+    }
+  }
+
+  private static CompilationUnit unit() {
+    CompilationUnit unit = CompilationUnit.of("retained");
+    NormalClassDeclaration outer = unit.declareClass("Outer");
+    outer.declareConstructor().addModifier(Modifier.PUBLIC);
+    for (int i = 0; i < 10; i++) {
+      outer.declareField(int.class, "field" + i).setInitializer(l -> l.add("1"));
+      MethodDeclaration method = outer.declareMethod(String.class, "method" + i);
+      method.addModifier(Modifier.PUBLIC);
+      method.addStatement("return {S}", "" + i);
+    }
+    outer.declareClass("Inner").declareMethod(void.class, "run").addStatement("run()");
+    return unit;
+  }
+
+  private static int lineNumber(String text, String line) {
+    int index = asList(text.split("\n")).indexOf(line);
+    assertTrue(index >= 0, "line not found: " + line);
+    return index + 1;
+  }
+
+  @Test
+  void incremental() {
+    CompilationUnit unit = unit();
+    RetainedRender render = new RetainedRender(unit);
+    String text = render.render();
+    assertEquals(unit.list(), text);
+    int lines = text.split("\n").length;
+    assertEquals(singletonList(new LineRange(1, lines + 1)), render.getChangedLines());
+    // nothing changed
+    assertEquals(text, render.render());
+    assertEquals(emptyList(), render.getChangedLines());
+    assertEquals(0, render.getRenderedCount());
+    assertEquals(1, render.getReusedCount());
+    // change a single method
+    NormalClassDeclaration outer = (NormalClassDeclaration) unit.getDeclarations().get(0);
+    MethodDeclaration method = (MethodDeclaration) outer.getClassBodyElements().get(10);
+    method.addStatement("return null");
+    text = render.render();
+    assertEquals(unit.list(), text);
+    int changed = lineNumber(text, "    return null;");
+    assertEquals(singletonList(new LineRange(changed, changed + 1)), render.getChangedLines());
+    assertEquals(2, render.getRenderedCount());
+    assertEquals(unit.getMutationStamp(), method.getMutationStamp());
+    // change modifiers of a field
+    ((FieldDeclaration) outer.getClassBodyElements().get(1)).addModifier(Modifier.FINAL);
+    text = render.render();
+    assertEquals(unit.list(), text);
+    changed = lineNumber(text, "  final int field0 = 1;");
+    assertEquals(singletonList(new LineRange(changed, changed + 1)), render.getChangedLines());
+  }
+
+  @Test
+  void structuralChanges() {
+    CompilationUnit unit = unit();
+    RetainedRender render = new RetainedRender(unit);
+    render.render();
+    NormalClassDeclaration outer = (NormalClassDeclaration) unit.getDeclarations().get(0);
+    // remove a method, its lines are gone in front of the following field
+    outer.getClassBodyElements().remove(4);
+    String text = render.render();
+    assertEquals(unit.list(), text);
+    assertTrue(!text.contains("method1"), text);
+    int removed = lineNumber(text, "  int field2 = 1;");
+    assertEquals(singletonList(new LineRange(removed, removed)), render.getChangedLines());
+    // rename the class, the constructor follows
+    outer.setName("Renamed");
+    text = render.render();
+    assertEquals(unit.list(), text);
+    assertTrue(text.contains("  public Renamed();"), text);
+    // import a type, all simple names change
+    unit.getImportDeclarations().addSingleTypeImport(String.class);
+    text = render.render();
+    assertEquals(unit.list(), text);
+    assertTrue(text.contains("  public String method0() {"), text);
+  }
+
+  @Test
+  void stamps() {
+    CompilationUnit unit = unit();
+    NormalClassDeclaration outer = (NormalClassDeclaration) unit.getDeclarations().get(0);
+    FieldDeclaration field = (FieldDeclaration) outer.getClassBodyElements().get(1);
+    field.addModifier(Modifier.FINAL);
+    long stamp = unit.getMutationStamp();
+    assertEquals(stamp, field.getMutationStamp());
+    // adding a present modifier changes nothing
+    long epoch = Mutation.epoch();
+    field.addModifier(Modifier.FINAL);
+    assertEquals(epoch, Mutation.epoch());
+    assertEquals(stamp, unit.getMutationStamp());
+    // a nested change is seen by the stamps cached on the path
+    MethodDeclaration method = (MethodDeclaration) outer.getClassBodyElements().get(2);
+    assertEquals(stamp, unit.getMutationStamp());
+    method.getParameters().add(MethodParameter.of(int.class, "i"));
+    assertTrue(unit.getMutationStamp() > stamp);
+    assertEquals(unit.getMutationStamp(), outer.getMutationStamp());
+    assertEquals(unit.getMutationStamp(), method.getMutationStamp());
+  }
+
+  @Test
+  void autoImport() {
+    CompilationUnit unit = CompilationUnit.of("retained");
+    unit.setAutoImport(true);
+    NormalClassDeclaration type = unit.declareClass("Type");
+    type.declareField(java.util.List.class, "a");
+    RetainedRender render = new RetainedRender(unit);
+    String text = render.render();
+    assertEquals(unit.list(), text);
+    assertTrue(text.contains("import java.util.List;"));
+    // an unrelated edit keeps the resolution and reuses unchanged fields
+    type.declareField(int.class, "i");
+    assertEquals(unit.list(), render.render());
+    assertTrue(render.getReusedCount() > 0);
+    // more java.awt.List fields claim the simple name, the other field is rendered qualified
+    type.declareField(java.awt.List.class, "b");
+    type.declareField(java.awt.List.class, "c");
+    text = render.render();
+    assertEquals(unit.list(), text);
+    assertTrue(text.contains("import java.awt.List;"));
+    assertTrue(text.contains("java.util.List a;"));
+  }
+
+  @Test
+  void trimmingNodes() {
+    Node root = new Node("root");
+    Node a = new Node("a").set("a", false, true);
+    Node b = new Node("b").set("b", true, false);
+    Node c = new Node("c").set("c", false, true);
+    Node d = new Node("d").set("d", true, false);
+    root.children.addAll(asList(a, b, c));
+    c.children.add(d);
+    RetainedRender render = new RetainedRender(root);
+    String text = render.render();
+    assertEquals(root.list(), text);
+    assertEquals("root\na\nb\nc\nd\n", text);
+    // every node is rendered once, although b trims a line it did not collect
+    assertEquals(5, render.getRenderedCount());
+    for (Node node : asList(root, a, b, c, d)) {
+      assertEquals(2, node.applied);
+    }
+    assertEquals(text, render.render());
+    assertEquals(1, render.getReusedCount());
+    // a lost its trailing empty line to b, it is not retained
+    b.set("b2", true, false);
+    assertEquals(root.list(), render.render());
+    assertEquals(3, render.getRenderedCount());
+    assertEquals(1, render.getReusedCount());
+    // trimming nodes are reused if the same empty lines are in front of them
+    c.set("c2", false, true);
+    assertEquals(root.list(), render.render());
+    assertEquals(3, render.getRenderedCount());
+    assertEquals(2, render.getReusedCount());
+    a.set("a", false, false);
+    c.set("c", false, false);
+    assertEquals(root.list(), render.render());
+    assertEquals("root\na\nb2\nc\nd\n", render.render());
+    b.set("b", false, true);
+    d.set("d", false, false);
+    assertEquals(root.list(), render.render());
+    assertEquals("root\na\nb\n\nc\nd\n", render.render());
+  }
+
+  @Test
+  void trimmingNodesAtStart() {
+    Node root = new Node("");
+    Node a = new Node("a").set("a", true, true);
+    Node b = new Node("").set("", false, false);
+    Node c = new Node("c").set("c", true, false);
+    root.children.addAll(asList(a, b));
+    b.children.add(c);
+    RetainedRender render = new RetainedRender(root);
+    // c trims the empty line after a through b, which has no lines of its own
+    assertEquals("a\nc\n", render.render());
+    assertEquals(root.list(), render.render());
+    assertEquals(1, render.getReusedCount());
+    // a lost its trailing empty line to c, b is reused with c inside
+    root.set("", false, false);
+    assertEquals(root.list(), render.render());
+    assertEquals(2, render.getRenderedCount());
+    assertEquals(1, render.getReusedCount());
+    a.set("a", true, false);
+    assertEquals(root.list(), render.render());
+    assertEquals("a\nc\n", render.render());
+  }
+
+  @Test
+  void lineRange() {
+    assertEquals("[1, 3)", new LineRange(1, 3).toString());
+    assertEquals(new LineRange(2, 2).hashCode(), new LineRange(2, 2).hashCode());
+    assertTrue(new LineRange(2, 2).isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> new LineRange(0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new LineRange(2, 1));
+  }
+}
@@ -0,0 +1,76 @@
+package com.github.sormuras.listing;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+import com.github.sormuras.listing.type.ClassName;
+import com.github.sormuras.listing.type.ClassType;
+import com.github.sormuras.listing.unit.Block;
+import com.github.sormuras.listing.unit.CompilationUnit;
+import com.github.sormuras.listing.unit.FieldDeclaration;
+import com.github.sormuras.listing.unit.MethodDeclaration;
+import com.github.sormuras.listing.unit.NormalClassDeclaration;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import org.junit.jupiter.api.Test;
+
+class SourceMapTest {
+
+  private static int lineNumber(String text, String line) {
+    return asList(text.split("\n")).indexOf(line) + 1;
+  }
+
+  @Test
+  void find() {
+    CompilationUnit unit = CompilationUnit.of("map");
+    NormalClassDeclaration type = unit.declareClass("Type");
+    type.declareField(String.class, "field");
+    MethodDeclaration method = type.declareMethod(int.class, "method");
+    Block body = new Block().add("int i = 1;", "return i;");
+    method.setBody(body);
+    SourceMap map = new SourceMap();
+    String text = unit.list(builder -> builder.setSourceMap(map));
+    assertEquals(unit.list(), text);
+    int line = lineNumber(text, "    return i;");
+    assertSame(body, map.find(line).get());
+    assertSame(method, map.find(line, MethodDeclaration.class).get());
+    assertSame(type, map.find(line, NormalClassDeclaration.class).get());
+    // the block starts at the end of the method's first line
+    line = lineNumber(text, "  int method() {");
+    assertSame(body, map.find(line).get());
+    assertSame(method, map.find(line, MethodDeclaration.class).get());
+    assertSame(type, map.find(lineNumber(text, "class Type {")).get());
+    line = lineNumber(text, "  java.lang.String field;");
+    assertEquals(ClassName.class, map.find(line).get().getClass());
+    assertTrue(map.find(line, ClassType.class).isPresent());
+    assertTrue(map.find(line, FieldDeclaration.class).isPresent());
+    assertFalse(map.find(0).isPresent());
+    assertFalse(map.find(text.split("\n").length + 1).isPresent());
+    map.clear();
+    assertEquals(0, map.size());
+    assertFalse(map.find(line).isPresent());
+  }
+
+  @Test
+  void diagnostics() {
+    CompilationUnit unit = CompilationUnit.of("map");
+    NormalClassDeclaration type = unit.declareClass("Broken");
+    for (int i = 0; i < 20; i++) {
+      type.declareMethod(int.class, "method" + i).addStatement("return " + i);
+    }
+    MethodDeclaration broken = type.declareMethod(int.class, "broken");
+    broken.addStatement("return undefined");
+    SourceMap map = new SourceMap();
+    JavaFileObject source = unit.toJavaFileObject(map);
+    Compilation.Failure failure =
+        expectThrows(Compilation.Failure.class, () -> Compilation.compile(source));
+    List<Diagnostic<? extends JavaFileObject>> diagnostics = failure.getDiagnostics();
+    assertEquals(1, diagnostics.size());
+    assertSame(broken, map.find(diagnostics.get(0), MethodDeclaration.class).get());
+  }
+}
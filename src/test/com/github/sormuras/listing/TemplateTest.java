@@ -0,0 +1,81 @@
+package com.github.sormuras.listing;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import org.junit.jupiter.api.Test;
+
+class TemplateTest {
+
+  @Test
+  void cached() {
+    String source = "{N}.out.println({S});";
+    assertSame(Template.of(source), Template.of(source));
+    assertNotSame(Template.of(source), new Template(source));
+    assertEquals(source, Template.of(source).getSource());
+    assertEquals("Template{" + source + "}", Template.of(source).toString());
+  }
+
+  @Test
+  void placeholders() {
+    assertEquals(0, Template.of("").getPlaceholderCount());
+    assertEquals(0, Template.of("abc").getPlaceholderCount());
+    assertEquals(3, Template.of("{S}{N}{L}").getPlaceholderCount());
+    assertEquals(2, Template.of("a{hashCode}b{getClass.getSimpleName}c").getPlaceholderCount());
+  }
+
+  @Test
+  void apply() {
+    Template template = Template.of("{N}.out.println({S}); // {hashCode}");
+    assertEquals(
+        "java.lang.System.out.println(\"1\"); // 0",
+        template.apply(new Listing(), System.class, "1", "").toString());
+    assertEquals(
+        "java.lang.System.err.println(\"2\"); // 0",
+        Template.of("{N}.err.println({S}); // {hashCode}")
+            .apply(new Listing(), System.class, "2", "")
+            .toString());
+    assertEquals("", Template.of("").apply(new Listing()).toString());
+  }
+
+  @Test
+  void applyMethodChainToDifferentReceiverClasses() {
+    Template template = Template.of("{size}");
+    assertEquals("0", template.apply(new Listing(), new ArrayList<>()).toString());
+    assertEquals("2", template.apply(new Listing(), new LinkedList<>(asList(1, 2))).toString());
+    assertEquals("1", template.apply(new Listing(), new HashSet<>(asList(3))).toString());
+  }
+
+  @Test
+  void applyFails() {
+    Exception e = expectThrows(Exception.class, () -> Template.of("{xxx}").apply(new Listing(), ""));
+    assertTrue(e.getMessage().contains("{xxx}"));
+  }
+
+  @Test
+  void applyPropagatesErrors() {
+    Template template = Template.of("{iterator.next}");
+    Iterable<Object> failing =
+        () -> {
+          throw new StackOverflowError("deep");
+        };
+    Error e = expectThrows(StackOverflowError.class, () -> template.apply(new Listing(), failing));
+    assertEquals("deep", e.getMessage());
+  }
+
+  @Test
+  void cacheIsBounded() {
+    for (int i = 0; i <= Template.CACHE_SIZE; i++) {
+      Template.of("bounded" + i);
+    }
+    String source = "{N}.in.read();";
+    assertSame(Template.of(source), Template.of(source));
+  }
+}
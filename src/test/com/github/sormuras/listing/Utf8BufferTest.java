@@ -0,0 +1,97 @@
+package com.github.sormuras.listing;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import org.junit.jupiter.api.Test;
+
+class Utf8BufferTest {
+
+  private static byte[] bytes(Utf8Buffer buffer) {
+    ByteBuffer result = buffer.toReadOnlyBuffer();
+    byte[] bytes = new byte[result.remaining()];
+    result.get(bytes);
+    return bytes;
+  }
+
+  private static void assertEncoded(String expected, Utf8Buffer buffer) {
+    assertArrayEquals(expected.getBytes(UTF_8), bytes(buffer));
+  }
+
+  @Test
+  void ascii() {
+    Utf8Buffer buffer = Utf8Buffer.allocate(0);
+    buffer.append("abc").append('-').append("xyz", 1, 3);
+    assertEquals(6, buffer.length());
+    assertEncoded("abc-yz", buffer);
+  }
+
+  @Test
+  void multiByte() {
+    String text = "aäα€😀z";
+    assertEncoded(text, Utf8Buffer.allocate(1).append(text));
+    Utf8Buffer buffer = Utf8Buffer.allocateDirect(1);
+    for (char character : text.toCharArray()) {
+      buffer.append(character);
+    }
+    assertEncoded(text, buffer);
+    buffer = Utf8Buffer.allocate(1);
+    buffer.append(text, 0, 5).append(text, 5, text.length());
+    assertEncoded(text, buffer);
+  }
+
+  @Test
+  void unpairedSurrogates() {
+    Utf8Buffer pending = Utf8Buffer.allocate(0).append('\ud83d');
+    assertEquals(0, pending.length());
+    assertEncoded("", pending);
+    pending.flush();
+    assertEncoded("?", pending);
+    assertEncoded("?a", Utf8Buffer.allocate(0).append("\ud83da"));
+    assertEncoded("a?", Utf8Buffer.allocate(0).append("a\ude00"));
+  }
+
+  @Test
+  void pendingSurrogateSurvivesRead() {
+    Utf8Buffer buffer = Utf8Buffer.allocate(0).append("a\ud83d");
+    assertEquals(1, buffer.length());
+    assertEncoded("a", buffer);
+    buffer.append('\ude00');
+    assertEquals(5, buffer.length());
+    assertEncoded("a\ud83d\ude00", buffer);
+  }
+
+  @Test
+  void reuse() {
+    ByteBuffer backing = ByteBuffer.allocate(64);
+    Utf8Buffer buffer = new Utf8Buffer(backing);
+    buffer.append("first");
+    buffer.clear().append("second");
+    assertEncoded("second", buffer);
+    assertFalse(buffer.isDirect());
+    assertTrue(Utf8Buffer.allocateDirect(1).append("grown beyond capacity").isDirect());
+    assertEquals("Utf8Buffer{length=6, direct=false}", buffer.toString());
+  }
+
+  @Test
+  void readOnly() {
+    ByteBuffer result = Utf8Buffer.allocate(4).append("abc").toReadOnlyBuffer();
+    assertTrue(result.isReadOnly());
+    assertEquals(3, result.remaining());
+    expectThrows(ReadOnlyBufferException.class, () -> result.put((byte) 0));
+  }
+
+  @Test
+  void listing() {
+    Listable listable = l -> l.add("α").newline().indent(1).add("β").newline().add("γ");
+    Utf8Buffer buffer = Utf8Buffer.allocate(1);
+    listable.list(buffer);
+    assertEncoded(listable.list(), buffer);
+  }
+}
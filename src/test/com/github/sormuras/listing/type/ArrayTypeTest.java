@@ -27,6 +27,18 @@ class ArrayTypeTest {
     assertSame(actual.getAnnotations(), actual.getDimensions().get(0).getAnnotations());
   }
 
+  @Test
+  void derivedClassName() {
+    ArrayType array = ArrayType.of(int.class, 2);
+    assertEquals("[[I", array.toClassName());
+    array.getDimensions().add(new ArrayDimension());
+    assertEquals("[[[I", array.toClassName());
+    array.setComponentType(ClassType.of("a", "B"));
+    assertEquals("[[[La.B;", array.toClassName());
+    ((ClassType) array.getComponentType()).setPackageName("c");
+    assertEquals("[[[Lc.B;", array.toClassName());
+  }
+
   @Test
   void mutable() {
     ArrayType array = new ArrayType();
@@ -1,8 +1,11 @@
 package com.github.sormuras.listing.type;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.github.sormuras.listing.Name;
 import java.lang.annotation.ElementType;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
@@ -42,6 +45,39 @@ class ClassTypeTest {
     assertEquals(Optional.empty(), ClassType.of(Thread.class).getEnclosingClassType());
   }
 
+  @Test
+  void derivedNames() {
+    ClassType type = ClassType.of("a.b", "C", "D");
+    Name name = type.getName();
+    assertSame(name, type.getName());
+    assertTrue(name.isShared());
+    assertEquals("a.b.C$D", type.toClassName());
+    type.setPackageName("x");
+    assertEquals("x.C.D", type.getName().getCanonicalName());
+    assertEquals("x.C$D", type.toClassName());
+    type.getNames().add(ClassName.of("E"));
+    assertEquals("x.C$D$E", type.toClassName());
+    type.getNames().get(0).setName("Z");
+    assertEquals("x.Z.D.E", type.getName().getCanonicalName());
+    assertEquals("x.Z$D$E", type.toClassName());
+  }
+
+  @Test
+  void derivedNamesAreFreshAfterSharing() {
+    ClassType type = ClassType.of("a", "B");
+    type.list();
+    assertEquals("a.B", type.toClassName());
+    type.setPackageName("x");
+    type.share();
+    assertEquals("x.B", type.toClassName());
+    assertEquals("x.B", type.getName().getCanonicalName());
+    ArrayType array = ArrayType.of(ClassType.of("a", "B"), 1);
+    assertEquals("[La.B;", array.toClassName());
+    ((ClassType) array.getComponentType()).setPackageName("x");
+    array.share();
+    assertEquals("[Lx.B;", array.toClassName());
+  }
+
   @Test
   void unnamedPackage() {
     assertEquals("A", ClassType.of("", "A").toClassName());
@@ -4,6 +4,8 @@ import static com.github.sormuras.listing.Tests.proxy;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.expectThrows;
 
@@ -22,6 +24,9 @@ import com.github.sormuras.listing.unit.TypeParameter;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Target;
 import java.net.URI;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.ErrorType;
 import javax.lang.model.type.NoType;
@@ -123,6 +128,48 @@ class JavaMirrorsTest {
     assertEquals(JavaType.of(void.class), visitor.visitNoType(voidType, null));
   }
 
+  @Test
+  void converter() {
+    CompilationUnit unit = CompilationUnit.of("test");
+    unit.declareClass("Root");
+    Counter counter = new Counter();
+    Compilation.compile(null, emptyList(), asList(counter), asList(unit.toJavaFileObject()));
+
+    TypeElement element = counter.elementUtils.getTypeElement(Runnable.class.getCanonicalName());
+    DeclaredType first = counter.typeUtils.getDeclaredType(element);
+    DeclaredType second = counter.typeUtils.getDeclaredType(element);
+    JavaMirrors.Converter converter = new JavaMirrors.Converter();
+    RoundEnvironment round = round(false);
+    JavaType runnable = converter.enter(round).of(first);
+    assertTrue(runnable.isShared());
+    assertEquals("java.lang.Runnable", runnable.list());
+    assertSame(runnable, converter.of(first));
+    assertSame(runnable, converter.of(second));
+    AnnotationMirror mirror = element.getAnnotationMirrors().get(0);
+    Annotation functional = converter.of(mirror);
+    assertTrue(functional.isShared());
+    assertSame(functional, converter.of(mirror));
+    assertSame(functional, converter.annotate(new WildcardType(), element).getAnnotations().get(0));
+    assertSame(runnable, converter.enter(round).of(first));
+    converter.enter(round(false));
+    assertNotSame(runnable, converter.of(first));
+    assertNotSame(functional, converter.of(mirror));
+    // the final round clears and memoizes nothing
+    runnable = converter.of(first);
+    assertSame(runnable, converter.of(first));
+    converter.enter(round(true));
+    assertNotSame(runnable, converter.of(first));
+    assertNotSame(converter.of(first), converter.of(first));
+    converter.enter(round(false));
+    assertSame(converter.of(first), converter.of(first));
+    converter.exit();
+    assertNotSame(converter.of(first), converter.of(first));
+  }
+
+  private static RoundEnvironment round(boolean over) {
+    return proxy(RoundEnvironment.class, (p, m, a) -> m.getName().equals("processingOver") && over);
+  }
+
   @Test
   void errorType() {
     CompilationUnit unit = CompilationUnit.of("test");
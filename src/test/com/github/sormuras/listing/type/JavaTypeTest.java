@@ -1,14 +1,22 @@
 package com.github.sormuras.listing.type;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.expectThrows;
 
+import com.github.sormuras.listing.Annotated;
+import com.github.sormuras.listing.Annotation;
 import com.github.sormuras.listing.Listing;
 import com.github.sormuras.listing.Tests;
 import java.lang.reflect.AnnotatedType;
 import java.lang.reflect.Type;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import test.U;
 
@@ -134,10 +142,109 @@ class JavaTypeTest<T> {
     JavaType uint = JavaType.of(int.class);
     uint.addAnnotation(U.class);
     assertEquals(U.USE + " int", uint.list());
+    assertEquals("int", JavaType.of(int.class).list());
+    assertNotSame(JavaType.of(void.class), JavaType.of(void.class));
+    assertNotSame(JavaType.of(String.class), JavaType.of(String.class));
+  }
+
+  @Test
+  void flyweights() {
+    Flyweights standard = Flyweights.standard();
+    assertSame(standard.get(int.class), standard.get(int.class));
+    assertSame(standard.get(void.class), standard.get(void.class));
+    assertSame(standard.get(String.class), standard.get(String.class));
+    assertNotSame(standard.get(String.class), Flyweights.standard().get(String.class));
+    assertNotSame(standard.get(UUID.class), standard.get(UUID.class));
+    assertFalse(standard.get(UUID.class).isShared());
+    assertFalse(standard.isShared(UUID.class));
+    Flyweights flyweights = Flyweights.of(UUID.class);
+    assertTrue(flyweights.isShared(UUID.class));
+    assertFalse(flyweights.isShared(int.class));
+    JavaType uuid = flyweights.get(UUID.class);
+    assertSame(uuid, flyweights.get(UUID.class));
+    assertTrue(uuid.isShared());
+    expectThrows(UnsupportedOperationException.class, () -> uuid.addAnnotation(U.class));
+    expectThrows(UnsupportedOperationException.class, () -> ((ClassType) uuid).setPackageName(""));
+    JavaType annotated = uuid.annotated(Annotation.of(U.class));
+    assertNotSame(uuid, annotated);
+    assertFalse(annotated.isShared());
+    assertEquals("java.util." + U.USE + " UUID", annotated.list());
+    assertEquals("java.util.UUID", uuid.list());
+    assertSame(uuid, uuid.annotated());
+    expectThrows(IllegalArgumentException.class, () -> Flyweights.of(int[].class));
+  }
+
+  @Test
+  void snapshots() throws Exception {
+    Type type = getClass().getDeclaredField("los").getGenericType();
+    JavaType generic = JavaType.of(type);
+    assertSame(generic, JavaType.of(type));
+    assertTrue(generic.isShared());
+    ClassType classType = (ClassType) generic;
+    TypeArgument argument = classType.getTypeArguments().get(0);
+    expectThrows(UnsupportedOperationException.class, () -> classType.getTypeArguments().clear());
+    expectThrows(UnsupportedOperationException.class, () -> argument.setWildcard(null));
+    expectThrows(UnsupportedOperationException.class, () -> generic.addAnnotation(U.class));
+    JavaType annotated = generic.annotated(Annotation.of(U.class));
+    assertEquals("java.util." + U.USE + " List<java.lang.String>", annotated.list());
+    assertEquals("java.util.List<java.lang.String>", generic.list());
+    // annotated types are keyed by value
+    AnnotatedType first = getClass().getDeclaredField("los").getAnnotatedType();
+    AnnotatedType second = getClass().getDeclaredField("los").getAnnotatedType();
+    JavaType los = JavaType.of(first);
+    assertSame(los, JavaType.of(second));
+    assertTrue(los.isShared());
+    expectThrows(UnsupportedOperationException.class, () -> los.getAnnotations().clear());
+    assertNotSame(los, JavaType.of(getClass().getDeclaredField("d").getAnnotatedType()));
+    JavaType copy = los.copy();
+    assertFalse(copy.isShared());
+    copy.getAnnotations().clear();
+    assertEquals("java.util.List<java.lang." + U.USE + " String>", copy.list());
+    assertEquals("java.util." + U.USE + " List<java.lang." + U.USE + " String>", los.list());
   }
 
   public List<String> parameterizedFieldType;
 
+  @Test
+  void copy() {
+    JavaType[] types = {
+      JavaType.of(void.class),
+      JavaType.of(int.class),
+      JavaType.of(Thread.State.class),
+      ArrayType.of(String.class, 2),
+      TypeVariable.of("T"),
+      WildcardType.subtypeOf(Number.class),
+      WildcardType.supertypeOf(Number.class)
+    };
+    for (JavaType type : types) {
+      ((Annotated) type).share();
+      JavaType copy = type.copy();
+      assertNotSame(type, copy);
+      assertFalse(copy.isShared());
+      assertEquals(type, copy);
+      assertEquals(type.list(), copy.list());
+    }
+  }
+
+  @Test
+  void copyIsDeep() throws Exception {
+    JavaType los = JavaType.of(getClass().getDeclaredField("los").getAnnotatedType());
+    ClassType type = (ClassType) los.copy();
+    ClassName list = type.getNames().get(type.getNames().size() - 1);
+    list.getTypeArguments().get(0).getReference().getAnnotations().clear();
+    assertEquals("java.util." + U.USE + " List<java.lang.String>", type.list());
+    JavaType d = JavaType.of(getClass().getDeclaredField("d").getAnnotatedType());
+    ArrayType array = (ArrayType) d.copy();
+    array.addAnnotations(1, Annotation.of(Deprecated.class));
+    ((ClassType) array.getComponentType()).addAnnotation(U.class);
+    String expected = "java.util." + U.USE + " List<java.lang.String>" + U.USE + " []";
+    assertEquals(expected + U.USE + " @java.lang.Deprecated []", array.list());
+    assertEquals("java.util.List<java.lang.String>" + U.USE + " []" + U.USE + " []", d.list());
+    WildcardType wildcard = WildcardType.supertypeOf(los).copy();
+    ((ClassType) wildcard.getBoundSuper().get()).getAnnotations().clear();
+    assertEquals("? super java.util.List<java.lang." + U.USE + " String>", wildcard.list());
+  }
+
   @Test
   void of() {
     assertEquals("java.lang.Object", JavaType.of(Object.class).list());
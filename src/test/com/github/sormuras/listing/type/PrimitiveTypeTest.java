@@ -55,5 +55,6 @@ class PrimitiveTypeTest {
     JavaType uint2 = JavaType.of(int.class);
     uint2.addAnnotation(reflected);
     assertEquals(U.USE + " int", uint2.list());
+    assertEquals("int", JavaType.of(int.class).list());
   }
 }
@@ -1,5 +1,6 @@
 package com.github.sormuras.listing.type;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -25,4 +26,11 @@ class TypeArgumentTest {
         expectThrows(AssertionError.class, () -> TypeArgument.of(PrimitiveType.of(int.class)));
     assertTrue(e.toString().contains("neither reference nor wildcard"));
   }
+
+  @Test
+  void empty() {
+    assertTrue(new TypeArgument().isEmpty());
+    assertFalse(TypeArgument.of(Object.class).isEmpty());
+    assertFalse(TypeArgument.of(new WildcardType()).isEmpty());
+  }
 }
@@ -25,7 +25,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import javax.annotation.Generated;
 import javax.lang.model.element.Modifier;
 import org.junit.Assert;
@@ -46,6 +48,44 @@ class CompilationUnitTest {
     Tests.assertSerializable(unit);
   }
 
+  @Test
+  void autoImport() throws Exception {
+    CompilationUnit unit = CompilationUnit.of("uss");
+    NormalClassDeclaration auto = unit.declareClass("Auto");
+    auto.addAnnotation(Generated.class, "test");
+    auto.declareField(List.class, "list1");
+    auto.declareField(List.class, "list2");
+    auto.declareField(java.awt.List.class, "list3");
+    auto.declareField(String.class, "string");
+    auto.declareField(Map.Entry.class, "entry");
+    auto.declareField(Thread.State.class, "state");
+    auto.declareField(Number.class, "number");
+    auto.declareClass("Number").addModifier(Modifier.STATIC);
+    unit.setAutoImport(true);
+    String expected =
+        "package uss;\n\n"
+            + "import java.util.List;\n"
+            + "import java.util.Map;\n"
+            + "import javax.annotation.Generated;\n\n"
+            + "@Generated(\"test\")\n"
+            + "class Auto {\n\n"
+            + "  static class Number {\n  }\n\n"
+            + "  List list1;\n\n"
+            + "  List list2;\n\n"
+            + "  java.awt.List list3;\n\n"
+            + "  String string;\n\n"
+            + "  Map.Entry entry;\n\n"
+            + "  Thread.State state;\n\n"
+            + "  java.lang.Number number;\n"
+            + "}\n";
+    assertEquals(expected, unit.list());
+    assertSame(unit.getResolvedImportDeclarations(), unit.getResolvedImportDeclarations());
+    assertTrue(unit.getImportDeclarations().isEmpty());
+    assertEquals("Auto", unit.compile().getSimpleName());
+    unit.setAutoImport(false);
+    assertTrue(unit.list().contains("  java.util.List list1;"));
+  }
+
   @Test
   void enterprise() {
     CompilationUnit unit = CompilationUnit.of("uss");
@@ -229,6 +269,76 @@ class CompilationUnitTest {
     Tests.assertSerializable(unit);
   }
 
+  @Test
+  void estimate() {
+    for (CompilationUnit unit : asList(Units.abc(), Units.simple())) {
+      String text = unit.list();
+      int lines = text.split("\n").length;
+      assertEstimate(text.length(), unit.estimateLength());
+      assertEstimate(lines, unit.estimateLines());
+    }
+  }
+
+  private static void assertEstimate(int actual, int estimate) {
+    String message = "actual " + actual + " is off by more than 50%, estimate: " + estimate;
+    assertTrue(estimate > actual / 2 && estimate < actual * 3 / 2, message);
+  }
+
+  @Test
+  void parallel() {
+    CompilationUnit unit = CompilationUnit.of("par");
+    NormalClassDeclaration outer = unit.declareClass("Outer");
+    for (int i = 0; i < 100; i++) {
+      outer.declareField(int.class, "field" + i).setInitializer(l -> l.add("1"));
+      MethodDeclaration method = outer.declareMethod(String.class, "method" + i);
+      method.addModifier(Modifier.PUBLIC);
+      method.addStatement("return {S}", "" + i);
+    }
+    NormalClassDeclaration inner = outer.declareClass("Inner");
+    inner.declareMethod(void.class, "run").addStatement("run()");
+    outer.declareInitializer(true).add("System.gc();");
+    unit.declareInterface("Second").declareMethod(void.class, "second");
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (CompilationUnit u : asList(unit, Units.abc(), Units.simple())) {
+        assertEquals(u.list(), u.list(b -> b.setRenderPool(pool)));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void withDeclaration() {
+    CompilationUnit base = CompilationUnit.of("with");
+    base.getImportDeclarations().addSingleTypeImport(Callable.class);
+    NormalClassDeclaration first = base.declareClass("First");
+    first.declareField(int.class, "i");
+    NormalClassDeclaration second = base.declareClass("Second");
+    String listing = base.list();
+    NormalClassDeclaration replacement = NormalClassDeclaration.of("Second");
+    replacement.declareField(long.class, "l");
+    CompilationUnit variant = base.withDeclaration(replacement);
+    assertTrue(base.isShared());
+    assertEquals(listing, base.list());
+    String expected = listing.replace("class Second {\n", "class Second {\n\n  long l;\n");
+    assertEquals(expected, variant.list());
+    assertSame(first, variant.getDeclarations().get(0));
+    assertSame(base.getImportDeclarations(), variant.getImportDeclarations());
+    assertSame(variant, replacement.getCompilationUnit());
+    assertSame(second, base.getDeclarations().get(1));
+    CompilationUnit third = variant.withDeclaration(NormalClassDeclaration.of("Third"));
+    assertEquals(3, third.getDeclarations().size());
+    // shared units are unmodifiable and render concurrently
+    expectThrows(UnsupportedOperationException.class, () -> base.declareClass("Fourth"));
+    expectThrows(UnsupportedOperationException.class, () -> base.setPackageName("other"));
+    expectThrows(
+        UnsupportedOperationException.class,
+        () -> third.getImportDeclarations().addSingleTypeImport(Objects.class));
+    String single = third.list();
+    IntStream.range(0, 16).parallel().forEach(i -> assertEquals(single, third.list()));
+  }
+
   @Test
   void imports() throws Exception {
     CompilationUnit unit = CompilationUnit.of("abc.xyz");
@@ -0,0 +1,80 @@
+package com.github.sormuras.listing.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.sormuras.listing.Tests;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import test.U;
+
+class CompilationUnitsTest {
+
+  @Deprecated
+  abstract static class Fixture<T extends Number> implements Comparable<Fixture<T>> {
+
+    enum Mode {
+      A,
+      B
+    }
+
+    interface Callback {
+      int LIMIT = 3;
+      double UNDEFINED = Double.NaN;
+      float LOW = Float.NEGATIVE_INFINITY;
+      String NAME = "callback";
+      int[] CODES = {1, 2};
+      Runnable NOOP = () -> {};
+
+      void call();
+
+      default String name() {
+        return "callback";
+      }
+    }
+
+    @Deprecated protected int count;
+
+    List<@U String> names;
+
+    Fixture(T value) throws IllegalArgumentException {}
+
+    public abstract <E extends Exception> T compute(@Deprecated String... args) throws E;
+  }
+
+  @Test
+  void mirrorClass() {
+    CompilationUnit unit = CompilationUnits.of(Fixture.class);
+    Tests.assertEquals(getClass(), "mirrorClass", unit);
+    NormalClassDeclaration fixture = (NormalClassDeclaration) unit.getDeclarations().get(0);
+    FieldDeclaration count = (FieldDeclaration) fixture.getClassBodyElements().get(0);
+    assertSame(fixture.getAnnotations().get(0), count.getAnnotations().get(0));
+    assertTrue(count.getAnnotations().get(0).isShared());
+  }
+
+  @Test
+  void mirrorClasses() {
+    List<Class<?>> types = Arrays.asList(Fixture.class, Fixture.Mode.class, U.class);
+    List<CompilationUnit> units = CompilationUnits.of(new ForkJoinPool(2), types);
+    assertEquals(3, units.size());
+    assertEquals("Fixture", units.get(0).getDeclarations().get(0).getName());
+    assertTrue(units.get(1).list().contains("enum Mode {"));
+    assertTrue(units.get(2).list().contains("public @interface U {"));
+  }
+
+  @Test
+  void mirrorPackage() {
+    ClassLoader loader = getClass().getClassLoader();
+    List<Class<?>> classes = CompilationUnits.classes(loader, "test");
+    assertTrue(classes.contains(U.class));
+    List<CompilationUnit> units = CompilationUnits.ofPackage("test");
+    assertEquals(classes.size(), units.size());
+    for (int i = 0; i < classes.size(); i++) {
+      TypeDeclaration declaration = units.get(i).getEponymousDeclaration().get();
+      assertEquals(classes.get(i).getSimpleName(), declaration.getName());
+    }
+  }
+}
@@ -43,6 +43,41 @@ public class ImportDeclarationsTest {
     assertTrue(new ImportDeclarations().isEmpty());
   }
 
+  @Test
+  void onDemandAfterMutation() {
+    ImportDeclarations imports = new ImportDeclarations();
+    imports.addTypeImportOnDemand(Name.of("java.util"));
+    assertTrue(imports.test(Name.of(Set.class)));
+    assertFalse(imports.test(Name.of(TimeUnit.class)));
+    imports.addTypeImportOnDemand(Name.of("java.util.concurrent"));
+    assertTrue(imports.test(Name.of(TimeUnit.class)));
+    assertTrue(imports.test(Name.of(Set.class)));
+  }
+
+  @Test
+  void sortedOnApply() {
+    check(
+        imports ->
+            imports
+                .addSingleTypeImport(Set.class)
+                .addSingleTypeImport(Map.class)
+                .addSingleTypeImport(ArrayList.class),
+        "import java.util.ArrayList;",
+        "import java.util.Map;",
+        "import java.util.Set;");
+  }
+
+  @Test
+  void sortedUntilMutation() {
+    ImportDeclarations imports = new ImportDeclarations();
+    imports.addSingleTypeImport(Set.class).addSingleTypeImport(Map.class);
+    String expected = "import java.util.Map;\nimport java.util.Set;\n";
+    assertEquals(expected, imports.list());
+    assertEquals(expected, imports.list());
+    imports.addSingleTypeImport(ArrayList.class);
+    assertEquals("import java.util.ArrayList;\n" + expected, imports.list());
+  }
+
   @Test
   void imports() throws Exception {
     ImportDeclarations imports = new ImportDeclarations();
@@ -2,6 +2,7 @@ package com.github.sormuras.listing.unit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.expectThrows;
 
 import com.github.sormuras.listing.Name;
@@ -88,4 +89,31 @@ class MethodDeclarationTest {
     assertEquals(false, var.isVarArgs());
     assertEquals("void var(int[] numbers);\n", var.list());
   }
+
+  @Test
+  void wrapParameters() {
+    MethodDeclaration m = new MethodDeclaration();
+    m.addModifier("public", "static");
+    m.setName("many");
+    for (int i = 0; i < 10; i++) {
+      m.addParameter(String.class, "parameter" + i);
+    }
+    m.addThrows(IllegalStateException.class);
+    String expected =
+        "public static void many(java.lang.String parameter0, java.lang.String parameter1,\n"
+            + "    java.lang.String parameter2, java.lang.String parameter3,"
+            + " java.lang.String parameter4,\n"
+            + "    java.lang.String parameter5, java.lang.String parameter6,"
+            + " java.lang.String parameter7,\n"
+            + "    java.lang.String parameter8, java.lang.String parameter9)\n"
+            + "    throws java.lang.IllegalStateException;\n";
+    assertEquals(expected, m.list(builder -> builder.setMaxColumn(100)));
+    // closing parenthesis and semicolon count towards the last parameter
+    m.getThrows().clear();
+    String text = m.list(builder -> builder.setMaxColumn(88));
+    assertTrue(text.endsWith(" java.lang.String parameter9);\n"), text);
+    for (String line : text.split("\n")) {
+      assertTrue(line.length() <= 88, line);
+    }
+  }
 }
@@ -2,12 +2,20 @@ package com.github.sormuras.listing.unit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.expectThrows;
 
+import com.github.sormuras.listing.Annotation;
+import com.github.sormuras.listing.type.ArrayType;
 import com.github.sormuras.listing.type.ClassType;
 import com.github.sormuras.listing.type.JavaType;
+import com.github.sormuras.listing.type.TypeVariable;
 import java.lang.annotation.ElementType;
+import java.util.Collection;
+import java.util.List;
 import org.junit.jupiter.api.Test;
+import test.U;
 
 class NormalClassDeclarationTest {
 
@@ -25,6 +33,22 @@ class NormalClassDeclarationTest {
             .isEmpty());
   }
 
+  @Test
+  void declaredTypesAreAnnotatable() {
+    NormalClassDeclaration declaration = NormalClassDeclaration.of("C");
+    declaration.declareMethod(int.class, "m").getReturnType().addAnnotation(U.class);
+    declaration.declareField(String.class, "s").getType().addAnnotation(U.class);
+    declaration.declareField(String.class, "t");
+    assertFalse(declaration.declareMethod(void.class, "v").getReturnType().isShared());
+    assertEquals(
+        "class C {\n\n  "
+            + U.USE
+            + " int m();\n\n  java.lang."
+            + U.USE
+            + " String s;\n\n  java.lang.String t;\n\n  void v();\n}\n",
+        declaration.list());
+  }
+
   @Test
   void generic() {
     NormalClassDeclaration declaration = new NormalClassDeclaration();
@@ -60,4 +84,70 @@ class NormalClassDeclarationTest {
   void target() {
     assertEquals(ElementType.TYPE, new NormalClassDeclaration().getAnnotationTarget());
   }
+
+  @Test
+  void withMethod() {
+    NormalClassDeclaration base = NormalClassDeclaration.of("Base");
+    FieldDeclaration field = base.declareField(int.class, "i");
+    MethodDeclaration get = base.declareMethod(int.class, "get");
+    get.addStatement("return i");
+    String listing = base.list();
+    // replace method of same signature
+    MethodDeclaration replacement = new MethodDeclaration();
+    replacement.setReturnType(JavaType.of(int.class));
+    replacement.setName("get");
+    replacement.addStatement("return 0");
+    NormalClassDeclaration variant = base.withMethod(replacement);
+    assertTrue(base.isShared());
+    assertTrue(variant.isShared());
+    assertEquals(listing, base.list());
+    assertEquals(listing.replace("return i", "return 0"), variant.list());
+    assertSame(field, variant.getClassBodyElements().get(0));
+    assertSame(variant, replacement.getEnclosingDeclaration());
+    // add method of other signature, reusing all other members
+    MethodDeclaration set = new MethodDeclaration();
+    set.setName("set");
+    set.addParameter(int.class, "i");
+    NormalClassDeclaration added = variant.withMethod(set);
+    assertEquals(3, added.getClassBodyElements().size());
+    assertSame(replacement, added.getClassBodyElements().get(1));
+    assertEquals(2, variant.getClassBodyElements().size());
+    // shared nodes are unmodifiable
+    expectThrows(UnsupportedOperationException.class, () -> base.setName("Changed"));
+    expectThrows(UnsupportedOperationException.class, () -> get.addStatement("i++"));
+    expectThrows(UnsupportedOperationException.class, () -> added.declareField(int.class, "j"));
+    expectThrows(UnsupportedOperationException.class, () -> field.setType(JavaType.of(long.class)));
+  }
+
+  @Test
+  void withMethodComparesErasedSignatures() {
+    NormalClassDeclaration base = NormalClassDeclaration.of("Base");
+    base.addTypeParameter(TypeParameter.of("T", JavaType.of(Number.class)));
+    base.declareMethod(void.class, "f").addParameter(
+        MethodParameter.of(ClassType.of(List.class, String.class), "list"));
+    base.declareMethod(void.class, "g").addParameter(
+        MethodParameter.of(ClassType.of(String.class).annotated(Annotation.of(U.class)), "s"));
+    base.declareMethod(void.class, "h").addParameter(MethodParameter.of(TypeVariable.of("T"), "t"));
+    MethodDeclaration k = base.declareMethod(void.class, "k");
+    k.addTypeParameter(TypeParameter.of("E"));
+    k.addParameter(MethodParameter.of(ArrayType.of(TypeVariable.of("E"), 1), "e"));
+    NormalClassDeclaration variant = base;
+    variant = variant.withMethod(method("f", JavaType.of(List.class)));
+    variant = variant.withMethod(method("g", JavaType.of(String.class)));
+    variant = variant.withMethod(method("h", JavaType.of(Number.class)));
+    variant = variant.withMethod(method("k", ArrayType.of(Object.class, 1)));
+    assertEquals(4, variant.getClassBodyElements().size());
+    // other erasures add methods
+    variant = variant.withMethod(method("f", JavaType.of(Collection.class)));
+    variant = variant.withMethod(method("h", JavaType.of(Object.class)));
+    variant = variant.withMethod(method("k", ArrayType.of(Object.class, 2)));
+    assertEquals(7, variant.getClassBodyElements().size());
+  }
+
+  private static MethodDeclaration method(String name, JavaType parameterType) {
+    MethodDeclaration method = new MethodDeclaration();
+    method.setName(name);
+    method.addParameter(MethodParameter.of(parameterType, "p"));
+    return method;
+  }
 }